@@ -0,0 +1,126 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Rebuilding the custom image background from a photo-sized source, before and after normalizing tiles on load.
+// The source is generated like a decoded JPEG (TYPE_3BYTE_BGR, noisy pixels so nothing compresses or caches well).
+// - rebuildBefore: what every rebuild used to do, scale each tile of the raw source into a new client-height cache
+// - normalize: the one-off cost normalizeTile() now pays when the image is loaded
+// - rebuildAfter: a rebuild from the normalized tile, through the overlay like OverlayRenderBenchmark.rebuildBackground
+//   (so it includes drawing the column layer, which rebuildBefore doesn't)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackgroundTileBenchmark
+{
+	@Param({"249", "1920"})
+	public int sourceWidth;
+
+	@Param({"100", "1080"})
+	public int sourceHeight;
+
+	@Param({"1080", "2160"})
+	public int height;
+
+	private BufferedImage source;
+	private FixedResizableHybridOverlay overlay;
+	private BufferedImage target;
+	private Graphics2D graphics;
+
+	@Setup
+	public void setUp()
+	{
+		source = photo(sourceWidth, sourceHeight);
+
+		final int width = height * 16 / 9;
+		final Stubs.StubClient stubClient = Stubs.gapColumnClient(width, height);
+
+		final FixedResizableHybridPlugin plugin = new FixedResizableHybridPlugin();
+		Stubs.set(plugin, "configSnapshot", Stubs.snapshot(BackgroundMode.TILED_CUSTOM_IMAGE, false, false));
+		Stubs.set(plugin, "widgetCache", new WidgetCache(stubClient.client));
+
+		overlay = new FixedResizableHybridOverlay(stubClient.client, plugin);
+		Stubs.set(overlay, "customImage", FixedResizableHybridOverlay.normalizeTile(source));
+
+		target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		graphics = target.createGraphics();
+		overlay.render(graphics);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+		overlay.shutDown();
+		overlay.releaseSurface();
+	}
+
+	@Benchmark
+	public BufferedImage rebuildBefore()
+	{
+		final BufferedImage cache = new BufferedImage(FixedResizableHybridOverlay.OVERLAY_WIDTH, height, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = cache.createGraphics();
+		try
+		{
+			for (int y = 0; y < height; y += sourceHeight)
+			{
+				g.drawImage(source, 0, y, FixedResizableHybridOverlay.OVERLAY_WIDTH, sourceHeight, null);
+			}
+		}
+		finally
+		{
+			g.dispose();
+		}
+		return cache;
+	}
+
+	@Benchmark
+	public BufferedImage normalize()
+	{
+		return FixedResizableHybridOverlay.normalizeTile(source);
+	}
+
+	@Benchmark
+	public Object rebuildAfter()
+	{
+		overlay.invalidateCache();
+		return overlay.render(graphics);
+	}
+
+	private static BufferedImage photo(int width, int height)
+	{
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		final Random random = new Random(42);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				// A gradient with noise on top, roughly what a photo's pixels look like to the scaler
+				final int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+				final int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+				final int b = random.nextInt(256);
+				image.setRGB(x, y, r << 16 | g << 8 | b);
+			}
+		}
+		return image;
+	}
+}
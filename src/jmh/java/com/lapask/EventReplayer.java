@@ -0,0 +1,214 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
+
+// Feeds a log written by EventRecorder back through the plugin's @Subscribe handlers on a WidgetSimulator, as fast as
+// possible, and tallies per handler (keyed by event, plus script/varbit id) the time spent, the widget setter calls and
+// the widget layout visits (revalidation cost). invokeLater() work is drained after every event and counted towards it.
+// The plugin's clock is replaced by one that advances by the recorded time between events, so time based decisions
+// (the window resize debounce) come out the same as in the recorded session whatever the speed of the replay.
+//
+// Not everything can be replayed without a game client:
+// - script 901 and GameStateChanged re-run the plugin initialization, which needs the overlay manager and sprites, so
+//   they're skipped (counted in skipped). The simulator stays in "Resizable - Classic" for the whole replay.
+// - handlers that touch the ConfigManager (e.g. the transparent chatbox varbit) throw on the missing dependency, the
+//   exception is counted in that handler's failures and the replay continues.
+// CANVAS_SIZE records resize the simulator, the resize itself isn't timed.
+//
+// Usage: java -cp <jmh jar> com.lapask.EventReplayer <recording.frhlog> [depth fanout]
+final class EventReplayer
+{
+	static final class HandlerStats
+	{
+		long count;
+		long nanos;
+		long setterCalls;
+		long layoutVisits;
+		long failures;
+	}
+
+	private final ImmediateClientThread clientThread = new ImmediateClientThread();
+	private final FixedResizableHybridPlugin plugin;
+	final WidgetSimulator simulator;
+	// Keys are built once per script/varbit id rather than per event
+	private final Map<Integer, String> scriptKeys = new HashMap<>();
+	private final Map<Integer, String> varbitKeys = new HashMap<>();
+	final Map<String, HandlerStats> stats = new HashMap<>();
+	long events;
+	long skipped;
+	// Recorded time of the current event, what the plugin sees as System.nanoTime()
+	private long replayNanos;
+
+	EventReplayer(PluginHarness harness)
+	{
+		plugin = harness.plugin;
+		simulator = harness.simulator;
+		Stubs.set(plugin, "clientThread", clientThread);
+		Stubs.set(plugin, "nanoClock", (LongSupplier) () -> replayNanos);
+		// Same starting point as a session after initialization: the plugin's modifications applied and revalidated
+		harness.pass("inventoryWidgetBoundsFix").run();
+		harness.pass("repositionMinimapWidgets").run();
+		harness.pass("widenChat").run();
+		harness.pass("flushRevalidations").run();
+	}
+
+	void replay(File file) throws IOException
+	{
+		try (InputStream in = new FileInputStream(file))
+		{
+			replay(in);
+		}
+	}
+
+	void replay(InputStream stream) throws IOException
+	{
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+		if (in.readInt() != EventRecorder.MAGIC)
+		{
+			throw new IOException("Not an event recording");
+		}
+		final int version = in.readUnsignedByte();
+		if (version != EventRecorder.VERSION)
+		{
+			throw new IOException("Unsupported event recording version " + version);
+		}
+
+		int type;
+		while ((type = in.read()) != -1)
+		{
+			replayNanos += EventRecorder.readVarLong(in) * 1000;
+			events++;
+			switch (type)
+			{
+				case EventRecorder.SCRIPT_POST_FIRED:
+				{
+					final int scriptId = EventRecorder.readInt(in);
+					if (scriptId == 901)
+					{
+						skipped++;
+						break;
+					}
+					final ScriptPostFired event = new ScriptPostFired(scriptId);
+					run(scriptKeys.computeIfAbsent(scriptId, id -> "ScriptPostFired " + id), () -> plugin.onScriptPostFired(event));
+					break;
+				}
+				case EventRecorder.WIDGET_LOADED:
+				{
+					final WidgetLoaded event = new WidgetLoaded();
+					event.setGroupId(EventRecorder.readInt(in));
+					run("WidgetLoaded", () -> plugin.onWidgetLoaded(event));
+					break;
+				}
+				case EventRecorder.WIDGET_CLOSED:
+				{
+					final int groupId = EventRecorder.readInt(in);
+					final boolean unload = EventRecorder.readInt(in) != 0;
+					final WidgetClosed event = new WidgetClosed(groupId, 0, unload);
+					run("WidgetClosed", () -> plugin.onWidgetClosed(event));
+					break;
+				}
+				case EventRecorder.VARBIT_CHANGED:
+				{
+					final VarbitChanged event = new VarbitChanged();
+					event.setVarpId(EventRecorder.readInt(in));
+					event.setVarbitId(EventRecorder.readInt(in));
+					event.setValue(EventRecorder.readInt(in));
+					run(varbitKeys.computeIfAbsent(event.getVarbitId(), id -> "VarbitChanged " + id), () -> plugin.onVarbitChanged(event));
+					break;
+				}
+				case EventRecorder.BEFORE_RENDER:
+					run("BeforeRender", () -> plugin.onBeforeRender(BeforeRender.INSTANCE));
+					break;
+				case EventRecorder.CANVAS_SIZE:
+				{
+					final int width = EventRecorder.readInt(in);
+					final int height = EventRecorder.readInt(in);
+					simulator.resize(width, height);
+					break;
+				}
+				case EventRecorder.GAME_STATE_CHANGED:
+					EventRecorder.readInt(in);
+					skipped++;
+					break;
+				case EventRecorder.GAME_TICK:
+					run("GameTick", () -> plugin.onGameTick(GameTick.INSTANCE));
+					break;
+				default:
+					throw new IOException("Unknown record type " + type + " after " + events + " events");
+			}
+		}
+	}
+
+	private void run(String key, Runnable handler)
+	{
+		final HandlerStats handlerStats = stats.computeIfAbsent(key, k -> new HandlerStats());
+		final long visits = simulator.layoutVisits;
+		final long setters = simulator.setterCalls;
+		final long start = System.nanoTime();
+		try
+		{
+			handler.run();
+			clientThread.drain();
+		}
+		catch (RuntimeException e)
+		{
+			handlerStats.failures++;
+		}
+		handlerStats.nanos += System.nanoTime() - start;
+		handlerStats.count++;
+		handlerStats.setterCalls += simulator.setterCalls - setters;
+		handlerStats.layoutVisits += simulator.layoutVisits - visits;
+	}
+
+	// Table of the handlers, most expensive first
+	String report()
+	{
+		final List<Map.Entry<String, HandlerStats>> entries = new ArrayList<>(stats.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos));
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d events, %d skipped%n", events, skipped));
+		sb.append(String.format("%-28s %10s %12s %10s %12s %12s %9s%n",
+			"handler", "count", "total ms", "mean us", "setters", "layouts", "failures"));
+		for (Map.Entry<String, HandlerStats> entry : entries)
+		{
+			final HandlerStats s = entry.getValue();
+			sb.append(String.format("%-28s %10d %12.3f %10.3f %12d %12d %9d%n",
+				entry.getKey(), s.count, s.nanos / 1e6, s.nanos / 1e3 / s.count, s.setterCalls, s.layoutVisits, s.failures));
+		}
+		return sb.toString();
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 1 && args.length != 3)
+		{
+			System.err.println("Usage: EventReplayer <recording.frhlog> [depth fanout]");
+			System.exit(2);
+		}
+		final int depth = args.length == 3 ? Integer.parseInt(args[1]) : 2;
+		final int fanout = args.length == 3 ? Integer.parseInt(args[2]) : 4;
+		final EventReplayer replayer = new EventReplayer(new PluginHarness(
+			WidgetSimulator.classicResizable(1920, 1080, depth, fanout),
+			Stubs.snapshot(BackgroundMode.TILED_STONE, false, false)));
+		replayer.replay(new File(args[0]));
+		System.out.print(replayer.report());
+	}
+}
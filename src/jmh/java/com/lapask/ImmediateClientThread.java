@@ -0,0 +1,57 @@
+package com.lapask;
+
+import java.util.ArrayDeque;
+import java.util.function.BooleanSupplier;
+import net.runelite.client.callback.ClientThread;
+
+// ClientThread for running handlers outside the client: invoke() runs right away, invokeLater() queues until drain(),
+// which stands in for the end of the client tick. Like the real one, a BooleanSupplier that returns false stays queued.
+final class ImmediateClientThread extends ClientThread
+{
+	private final ArrayDeque<BooleanSupplier> queue = new ArrayDeque<>();
+
+	@Override
+	public void invoke(Runnable r)
+	{
+		r.run();
+	}
+
+	@Override
+	public void invoke(BooleanSupplier r)
+	{
+		if (!r.getAsBoolean())
+		{
+			queue.add(r);
+		}
+	}
+
+	@Override
+	public void invokeLater(Runnable r)
+	{
+		queue.add(() ->
+		{
+			r.run();
+			return true;
+		});
+	}
+
+	@Override
+	public void invokeLater(BooleanSupplier r)
+	{
+		queue.add(r);
+	}
+
+	// Runs everything queued so far once, returns how many are still pending
+	int drain()
+	{
+		for (int i = queue.size(); i > 0; i--)
+		{
+			BooleanSupplier r = queue.poll();
+			if (!r.getAsBoolean())
+			{
+				queue.add(r);
+			}
+		}
+		return queue.size();
+	}
+}
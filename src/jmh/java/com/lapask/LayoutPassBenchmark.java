@@ -0,0 +1,141 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Runs the plugin's layout passes against a simulated widget tree. depth/fanout grow the synthetic subtrees under the
+// click window and HUD container (the trees fixIngameOverlayWidgets()/fixInterfaceDimensions() recurse into).
+// Every pass is followed by the revalidation flush that onBeforeRender() would do, and the simulator's widget layout
+// visits and setter calls are reported as secondary results (event counts per iteration).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutPassBenchmark
+{
+	@Param({"1", "2", "4"})
+	public int depth;
+
+	@Param({"2", "4", "8"})
+	public int fanout;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Cost
+	{
+		public long layoutVisits;
+		public long setterCalls;
+	}
+
+	private PluginHarness harness;
+	private Runnable flushRevalidations;
+	private Runnable fixInterfaceDimensions;
+	private Runnable repositionMinimapWidgets;
+	private Runnable inventoryWidgetBoundsFix;
+	private Runnable widenChat;
+	private Runnable resetOriginalStates;
+	private MethodHandle processClickWindowChildren;
+	private Widget clickWindow;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		harness = new PluginHarness(WidgetSimulator.classicResizable(1920, 1080, depth, fanout),
+			Stubs.snapshot(BackgroundMode.TILED_STONE, false, false));
+		flushRevalidations = harness.pass("flushRevalidations");
+		fixInterfaceDimensions = harness.pass("fixInterfaceDimensions");
+		repositionMinimapWidgets = harness.pass("repositionMinimapWidgets");
+		inventoryWidgetBoundsFix = harness.pass("inventoryWidgetBoundsFix");
+		widenChat = harness.pass("widenChat");
+		resetOriginalStates = harness.pass("resetOriginalStates");
+		processClickWindowChildren = harness.method("processClickWindowChildren", Widget[].class, int.class, int.class, boolean.class);
+		clickWindow = harness.simulator.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT_TRACKER_BACK).widget;
+	}
+
+	// resetOriginalStates() needs saved states, so every invocation starts from a freshly modified tree.
+	// Only used by that benchmark, JMH only runs the fixtures of the states a benchmark uses.
+	@State(Scope.Thread)
+	public static class Modified
+	{
+		@Setup(Level.Invocation)
+		public void modify(LayoutPassBenchmark benchmark)
+		{
+			// resetOriginalStates() clears the flag, widenChat() only runs with it set
+			Stubs.set(benchmark.harness.plugin, "widgetsModified", true);
+			benchmark.inventoryWidgetBoundsFix.run();
+			benchmark.repositionMinimapWidgets.run();
+			benchmark.widenChat.run();
+			benchmark.flushRevalidations.run();
+		}
+	}
+
+	@Benchmark
+	public void fixInterfaceDimensions(Cost cost)
+	{
+		run(fixInterfaceDimensions, cost);
+	}
+
+	@Benchmark
+	public void processClickWindowChildren(Cost cost) throws Throwable
+	{
+		final WidgetSimulator sim = harness.simulator;
+		final long visits = sim.layoutVisits;
+		final long setters = sim.setterCalls;
+		processClickWindowChildren.invoke(clickWindow.getStaticChildren(), 4, 0, true);
+		cost.layoutVisits += sim.layoutVisits - visits;
+		cost.setterCalls += sim.setterCalls - setters;
+	}
+
+	@Benchmark
+	public void repositionMinimapWidgets(Cost cost)
+	{
+		run(repositionMinimapWidgets, cost);
+	}
+
+	@Benchmark
+	public void inventoryWidgetBoundsFix(Cost cost)
+	{
+		run(inventoryWidgetBoundsFix, cost);
+	}
+
+	@Benchmark
+	public void widenChat(Cost cost)
+	{
+		run(widenChat, cost);
+	}
+
+	@Benchmark
+	public void resetOriginalStates(Modified modified, Cost cost)
+	{
+		run(resetOriginalStates, cost);
+	}
+
+	private void run(Runnable pass, Cost cost)
+	{
+		final WidgetSimulator sim = harness.simulator;
+		final long visits = sim.layoutVisits;
+		final long setters = sim.setterCalls;
+		pass.run();
+		flushRevalidations.run();
+		cost.layoutVisits += sim.layoutVisits - visits;
+		cost.setterCalls += sim.setterCalls - setters;
+	}
+}
@@ -0,0 +1,116 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Renders the gap column into an offscreen client-sized image.
+// renderFrame is the steady state (nothing changed since the last frame), rebuildBackground invalidates the background
+// cache first like a config change does, and resizeFrame changes the client height every frame like drag-resizing.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlayRenderBenchmark
+{
+	@Param({"SOLID_COLOR", "TILED_STONE", "TILED_CUSTOM_IMAGE"})
+	public BackgroundMode mode;
+
+	@Param({"true", "false"})
+	public boolean tint;
+
+	@Param({"true", "false"})
+	public boolean gapBorders;
+
+	@Param({"503", "768", "1080", "1440", "2160"})
+	public int height;
+
+	private Stubs.StubClient stubClient;
+	private WidgetCache widgetCache;
+	private FixedResizableHybridOverlay overlay;
+	private BufferedImage target;
+	private Graphics2D graphics;
+	private boolean resized;
+
+	@Setup
+	public void setUp()
+	{
+		final int width = height * 16 / 9;
+		stubClient = Stubs.gapColumnClient(width, height);
+
+		FixedResizableHybridPlugin plugin = new FixedResizableHybridPlugin();
+		Stubs.set(plugin, "configSnapshot", Stubs.snapshot(mode, tint, gapBorders));
+		widgetCache = new WidgetCache(stubClient.client);
+		Stubs.set(plugin, "widgetCache", widgetCache);
+
+		overlay = new FixedResizableHybridOverlay(stubClient.client, plugin);
+		if (mode == BackgroundMode.TILED_CUSTOM_IMAGE)
+		{
+			Stubs.set(overlay, "customImage", FixedResizableHybridOverlay.normalizeTile(customImage()));
+		}
+
+		target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		graphics = target.createGraphics();
+		overlay.render(graphics); // probes the surface and builds the caches
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+		overlay.shutDown();
+		overlay.releaseSurface();
+	}
+
+	@Benchmark
+	public Object renderFrame()
+	{
+		return overlay.render(graphics);
+	}
+
+	@Benchmark
+	public Object rebuildBackground()
+	{
+		overlay.invalidateCache();
+		return overlay.render(graphics);
+	}
+
+	@Benchmark
+	public Object resizeFrame()
+	{
+		resized = !resized;
+		stubClient.canvasHeight = resized ? height - 1 : height;
+		widgetCache.validateCanvasSize(stubClient.canvasWidth, stubClient.canvasHeight);
+		return overlay.render(graphics);
+	}
+
+	// A 249x100 gradient, short enough to be repeated into a multi-tile strip
+	private static BufferedImage customImage()
+	{
+		BufferedImage image = new BufferedImage(FixedResizableHybridOverlay.OVERLAY_WIDTH, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		for (int y = 0; y < image.getHeight(); y++)
+		{
+			g.setColor(new Color(y % 256, 64, 255 - y % 256));
+			g.drawLine(0, y, image.getWidth(), y);
+		}
+		g.dispose();
+		return image;
+	}
+}
@@ -0,0 +1,62 @@
+package com.lapask;
+
+import com.lapask.config.ConfigSnapshot;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+// A FixedResizableHybridPlugin wired to a WidgetSimulator instead of Guice and a game client, in the state it's in
+// after initialization in "Resizable - Classic" (layout 2, widgets modified, chat open).
+// The layout passes are private, they're called through method handles looked up once.
+final class PluginHarness
+{
+	final WidgetSimulator simulator;
+	final FixedResizableHybridPlugin plugin = new FixedResizableHybridPlugin();
+	final WidgetCache widgetCache;
+	final UiState uiState;
+
+	PluginHarness(WidgetSimulator simulator, ConfigSnapshot snapshot)
+	{
+		this.simulator = simulator;
+		widgetCache = new WidgetCache(simulator.client);
+		Stubs.set(plugin, "client", simulator.client);
+		Stubs.set(plugin, "widgetCache", widgetCache);
+		Stubs.set(plugin, "configSnapshot", snapshot);
+		Stubs.set(plugin, "widgetsModified", true);
+		uiState = (UiState) Stubs.get(plugin, "uiState");
+		uiState.setGameClientLayout(2);
+		uiState.setChatboxOpen(true);
+	}
+
+	// Handle for a private plugin method, bound to this harness' plugin
+	MethodHandle method(String name, Class<?>... parameterTypes)
+	{
+		try
+		{
+			Method method = FixedResizableHybridPlugin.class.getDeclaredMethod(name, parameterTypes);
+			method.setAccessible(true);
+			return MethodHandles.lookup().unreflect(method).bindTo(plugin);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Can't access " + name, e);
+		}
+	}
+
+	// A no-argument pass, its return value (if any) is dropped
+	Runnable pass(String name)
+	{
+		final MethodHandle handle = method(name);
+		return () ->
+		{
+			try
+			{
+				handle.invoke();
+			}
+			catch (Throwable t)
+			{
+				throw new IllegalStateException(name + " failed", t);
+			}
+		};
+	}
+}
@@ -0,0 +1,126 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Replays a whole recorded session per invocation, each on a fresh simulator and plugin.
+// Uses the recording passed with -Precording=<file> (see build.gradle), or a synthetic session if there's none:
+// a few minutes of frames and ticks with chat toggles, a window resize drag, a cutscene and a fairy ring.
+// The per-handler breakdown isn't something JMH can report, run EventReplayer's main() on the same file for that.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ReplayBenchmark
+{
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Cost
+	{
+		public long layoutVisits;
+		public long setterCalls;
+	}
+
+	private byte[] recording;
+	private EventReplayer replayer;
+
+	@Setup(Level.Trial)
+	public void loadRecording() throws Exception
+	{
+		final String path = System.getProperty("frh.recording");
+		recording = Files.readAllBytes(path != null ? new File(path).toPath() : syntheticSession().toPath());
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp()
+	{
+		replayer = new EventReplayer(new PluginHarness(WidgetSimulator.classicResizable(1920, 1080, 2, 4),
+			Stubs.snapshot(BackgroundMode.TILED_STONE, false, false)));
+	}
+
+	@Benchmark
+	public long replay(Cost cost) throws IOException
+	{
+		final WidgetSimulator sim = replayer.simulator;
+		final long visits = sim.layoutVisits;
+		final long setters = sim.setterCalls;
+		replayer.replay(new ByteArrayInputStream(recording));
+		cost.layoutVisits += sim.layoutVisits - visits;
+		cost.setterCalls += sim.setterCalls - setters;
+		return replayer.events;
+	}
+
+	private static File syntheticSession() throws Exception
+	{
+		final File file = File.createTempFile("frh-synthetic", ".frhlog");
+		file.deleteOnExit();
+		// Recorded at 50 frames per second
+		final long[] now = {0};
+		final EventRecorder recorder = new EventRecorder(() -> now[0]);
+		recorder.start(file);
+		int width = 1920;
+		int height = 1080;
+		for (int frame = 0; frame < 3 * 60 * 50; frame++)
+		{
+			if (frame % 30 == 0)
+			{
+				recorder.gameTick();
+			}
+			if (frame % 1500 == 100)
+			{
+				// Chat closed and reopened
+				recorder.scriptPostFired(178);
+				recorder.scriptPostFired(175);
+			}
+			if (frame % 500 == 250)
+			{
+				// Interface opened, e.g. the bank
+				recorder.scriptPostFired(909);
+			}
+			if (frame >= 2000 && frame < 2120)
+			{
+				// Window dragged a pixel per frame
+				width++;
+				height--;
+				recorder.scriptPostFired(904);
+			}
+			if (frame == 4000 || frame == 5000)
+			{
+				recorder.varbitChanged(1021, 542, frame == 4000 ? 1 : 0);
+			}
+			if (frame == 6000)
+			{
+				recorder.widgetLoaded(398);
+				recorder.scriptPostFired(1699);
+			}
+			if (frame == 7000)
+			{
+				recorder.widgetClosed(398, true);
+				recorder.scriptPostFired(902);
+			}
+			recorder.beforeRender(width, height);
+			now[0] += 20_000_000L;
+		}
+		// Written on the recorder's writer thread, wait for the file to be closed
+		recorder.stop().get();
+		return file;
+	}
+}
@@ -0,0 +1,478 @@
+package com.lapask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Point;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.widgets.Widget;
+
+// In-memory stand-in for the client's widget tree so the plugin's layout passes can run without a game client.
+// Models the parts of the "Resizable - Classic" toplevel (ToplevelOsrsStretch), the nested Chatbox and Orbs
+// interfaces that the plugin touches, plus a synthetic subtree of configurable depth/fanout under the click window and
+// HUD container to grow the trees the recursive passes walk.
+//
+// Widgets keep their original* values and position/size modes, and revalidate()/revalidateScroll() recompute the
+// geometry like the client does: relative to the parent, then recursively for every child. Each widget laid out is
+// counted in layoutVisits, which is the cost model for revalidation; setter calls are counted in setterCalls.
+// Anything the plugin calls that isn't modeled returns zero/null/false.
+final class WidgetSimulator
+{
+	// Components that aren't part of the modeled interfaces get ids in this (unused) group
+	private static final int SYNTHETIC_GROUP = 0x7000;
+
+	private static final int ABSOLUTE = 0;
+	private static final int MINUS = 1;
+	private static final int LEFT = 0;
+	private static final int CENTER = 1;
+	private static final int RIGHT = 2;
+
+	final Map<Integer, Node> widgets = new HashMap<>();
+	int canvasWidth;
+	int canvasHeight;
+	long layoutVisits;
+	long setterCalls;
+	long revalidations;
+	private int nextSyntheticId;
+	private Node root;
+
+	final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+		(proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getCanvasWidth":
+					return canvasWidth;
+				case "getCanvasHeight":
+					return canvasHeight;
+				case "getGameState":
+					return GameState.LOGGED_IN;
+				case "isResizable":
+					return true;
+				case "getWidget":
+					if (args.length == 1 && args[0] instanceof Integer)
+					{
+						Node node = widgets.get(args[0]);
+						return node == null ? null : node.widget;
+					}
+					return null;
+				default:
+					return Stubs.defaultValue(method.getReturnType());
+			}
+		});
+
+	// Builds the classic resizable layout at the given canvas size. depth/fanout control the synthetic subtrees.
+	static WidgetSimulator classicResizable(int canvasWidth, int canvasHeight, int depth, int fanout)
+	{
+		WidgetSimulator sim = new WidgetSimulator();
+		sim.canvasWidth = canvasWidth;
+		sim.canvasHeight = canvasHeight;
+		sim.build(depth, fanout);
+		sim.root.layout();
+		sim.layoutVisits = 0;
+		sim.setterCalls = 0;
+		sim.revalidations = 0;
+		return sim;
+	}
+
+	Node get(int componentId)
+	{
+		return widgets.get(componentId);
+	}
+
+	int size()
+	{
+		return widgets.size();
+	}
+
+	// Resizes the canvas and lays out the whole tree, like the client does on a window resize
+	void resize(int canvasWidth, int canvasHeight)
+	{
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+		root.layout();
+	}
+
+	private void build(int depth, int fanout)
+	{
+		root = node(null, InterfaceID.ToplevelOsrsStretch.CONTROL, false)
+			.bounds(0, 0, 0, 0).modes(LEFT, LEFT, MINUS, MINUS);
+
+		Node viewport = node(root, InterfaceID.ToplevelOsrsStretch.VIEWPORT, false)
+			.bounds(0, 0, 0, 165).modes(LEFT, LEFT, MINUS, MINUS);
+
+		// In-game overlays (minigame HUDs etc), what fixIngameOverlayWidgets() walks
+		Node clickWindow = node(root, InterfaceID.ToplevelOsrsStretch.VIEWPORT_TRACKER_BACK, false)
+			.bounds(0, 0, 0, 0).modes(CENTER, CENTER, MINUS, MINUS);
+		syntheticTree(clickWindow, depth, fanout);
+
+		Node hudParent = node(root, synthetic(), false)
+			.bounds(0, 0, 0, 0).modes(CENTER, CENTER, MINUS, MINUS);
+		Node hud = node(hudParent, InterfaceID.ToplevelOsrsStretch.HUD_CONTAINER_FRONT, false)
+			.bounds(0, 0, 250, 0).modes(LEFT, LEFT, MINUS, MINUS);
+		Node backgrounds = node(hud, InterfaceID.ToplevelOsrsStretch.MAINMODAL_BACKGROUNDS, false)
+			.bounds(0, 0, 0, 0).modes(LEFT, LEFT, MINUS, MINUS);
+		for (int i = 0; i < 4; i++)
+		{
+			backgrounds.dynamic(0, 0, 0, 0);
+		}
+		node(hud, InterfaceID.ToplevelOsrsStretch.MAINMODAL, false)
+			.bounds(0, 0, 488, 300).modes(CENTER, CENTER, ABSOLUTE, ABSOLUTE);
+		syntheticTree(hud, depth, fanout);
+
+		// Minimap block
+		Node map = node(root, InterfaceID.ToplevelOsrsStretch.MAP_CONTAINER, false)
+			.bounds(0, 0, 210, 170).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		int[] noClick = {
+			InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_0, InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_1,
+			InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_2, InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_3,
+			InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_4, InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_5,
+		};
+		for (int i = 0; i < noClick.length; i++)
+		{
+			node(map, noClick[i], false).bounds(0, i * 25, 160, 20).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		}
+		node(map, InterfaceID.ToplevelOsrsStretch.MINIMAP, false).bounds(10, 5, 152, 152).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		node(map, InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC9, false).bounds(0, 0, 172, 156).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		node(map, InterfaceID.ToplevelOsrsStretch.COMPASSCLICK, false).bounds(150, 4, 34, 34).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		node(map, InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC6, false).bounds(152, 6, 30, 30).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+
+		// Orbs, a nested interface
+		Node orbsParent = node(root, InterfaceID.ToplevelOsrsStretch.ORBS, false)
+			.bounds(0, 0, 210, 170).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		Node orbs = node(orbsParent, InterfaceID.Orbs.UNIVERSE, true)
+			.bounds(0, 0, 0, 0).modes(LEFT, LEFT, MINUS, MINUS);
+		node(orbs, InterfaceID.Orbs.XP_DROPS, false).bounds(0, 0, 26, 26);
+		node(orbs, InterfaceID.Orbs.ORB_HEALTH, false).bounds(0, 37, 57, 34);
+		node(orbs, InterfaceID.Orbs.ORB_PRAYER, false).bounds(0, 71, 57, 34);
+		node(orbs, InterfaceID.Orbs.ORB_RUNENERGY, false).bounds(10, 105, 57, 34);
+		node(orbs, InterfaceID.Orbs.ORB_SPECENERGY, false).bounds(32, 130, 57, 34);
+		node(orbs, InterfaceID.Orbs.ORB_WORLDMAP, false).bounds(0, 115, 38, 38);
+		node(orbs, InterfaceID.Orbs.WIKI, false).bounds(0, 135, 40, 20);
+		node(orbs, InterfaceID.Orbs.ORB_STORE, false).bounds(85, 83, 34, 34);
+		node(orbs, InterfaceID.Orbs.ORB_CONTENTRECOM, false).bounds(55, 50, 34, 34);
+
+		// Inventory block
+		Node side = node(root, InterfaceID.ToplevelOsrsStretch.SIDE_MENU, false)
+			.bounds(0, 0, 241, 336).modes(RIGHT, RIGHT, ABSOLUTE, ABSOLUTE);
+		node(side, InterfaceID.ToplevelOsrsStretch.SIDE_BACKGROUND, false).bounds(0, 37, 204, 275);
+		node(side, InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC1, false).bounds(0, 37, 7, 262);
+		node(side, InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC2, false).bounds(0, 37, 7, 262).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+		node(side, InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC3, false).bounds(0, 0, 241, 37).modes(LEFT, RIGHT, ABSOLUTE, ABSOLUTE);
+		node(side, InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC5, false).bounds(0, 0, 241, 37);
+		syntheticTree(node(side, InterfaceID.ToplevelOsrsStretch.SIDE_BOTTOM, false).bounds(0, 0, 241, 37).modes(LEFT, RIGHT, ABSOLUTE, ABSOLUTE), 1, 7);
+		syntheticTree(node(side, InterfaceID.ToplevelOsrsStretch.SIDE_TOP, false).bounds(0, 0, 241, 37), 1, 7);
+		syntheticTree(node(side, InterfaceID.ToplevelOsrsStretch.SIDE_CONTAINER, false).bounds(26, 37, 190, 261), 1, 28);
+
+		// Chatbox, a nested interface
+		Node chatParent = node(root, InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER, false)
+			.bounds(0, 0, 519, 165).modes(LEFT, RIGHT, ABSOLUTE, ABSOLUTE);
+		Node chat = node(chatParent, synthetic(), true).bounds(0, 0, 0, 0).modes(LEFT, LEFT, MINUS, MINUS);
+		Node chatArea = node(chat, InterfaceID.Chatbox.CHATAREA, false).bounds(0, 0, 519, 142);
+		Node chatBackground = node(chatArea, InterfaceID.Chatbox.CHAT_BACKGROUND, false).bounds(0, 0, 0, 0).modes(LEFT, LEFT, MINUS, MINUS);
+		chatBackground.dynamic(0, 0, 519, 142);
+		Node controls = node(chat, InterfaceID.Chatbox.CONTROLS, false).bounds(0, 0, 519, 23).modes(LEFT, RIGHT, ABSOLUTE, ABSOLUTE);
+		Node buttonsBackground = node(controls, synthetic(), false).bounds(0, 0, 519, 23);
+		node(buttonsBackground, synthetic(), false).bounds(0, 0, 519, 23);
+		for (int i = 0; i < 7; i++)
+		{
+			Node button = node(controls, synthetic(), false).bounds(5 + i * 62, 0, 56, 23);
+			node(button, synthetic(), false).bounds(0, 0, 56, 23);
+		}
+		Node report = node(controls, InterfaceID.Chatbox.REPORTABUSE, false).bounds(439, 0, 79, 23);
+		node(report, synthetic(), false).bounds(0, 0, 79, 23);
+	}
+
+	// fanout^1 + ... + fanout^depth static widgets, a mix of the sizes/modes the click window fix-ups look for
+	private void syntheticTree(Node parent, int depth, int fanout)
+	{
+		if (depth <= 0)
+		{
+			return;
+		}
+		for (int i = 0; i < fanout; i++)
+		{
+			Node child = node(parent, synthetic(), false);
+			switch (i % 3)
+			{
+				case 0:
+					child.bounds(0, 0, 250, 0).modes(LEFT, LEFT, MINUS, MINUS);
+					break;
+				case 1:
+					child.bounds(0, 0, 0, 168).modes(CENTER, RIGHT, MINUS, MINUS);
+					break;
+				default:
+					child.bounds(i * 4, i * 4, 120, 40).modes(RIGHT, LEFT, ABSOLUTE, ABSOLUTE);
+			}
+			syntheticTree(child, depth - 1, fanout);
+		}
+	}
+
+	private int synthetic()
+	{
+		return (SYNTHETIC_GROUP << 16) | nextSyntheticId++;
+	}
+
+	private Node node(Node parent, int componentId, boolean nested)
+	{
+		Node node = new Node(componentId, parent);
+		if (parent != null)
+		{
+			(nested ? parent.nestedChildren : parent.staticChildren).add(node);
+		}
+		widgets.put(componentId, node);
+		return node;
+	}
+
+	final class Node implements InvocationHandler
+	{
+		final int id;
+		final Node parent;
+		final List<Node> staticChildren = new ArrayList<>();
+		final List<Node> dynamicChildren = new ArrayList<>();
+		final List<Node> nestedChildren = new ArrayList<>();
+		final Widget widget;
+
+		int originalX;
+		int originalY;
+		int originalWidth;
+		int originalHeight;
+		int xPositionMode;
+		int yPositionMode;
+		int widthMode;
+		int heightMode;
+		int spriteId = -1;
+		boolean selfHidden;
+
+		int relativeX;
+		int relativeY;
+		int width;
+		int height;
+
+		private Node(int id, Node parent)
+		{
+			this.id = id;
+			this.parent = parent;
+			this.widget = (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class}, this);
+		}
+
+		Node bounds(int x, int y, int w, int h)
+		{
+			originalX = x;
+			originalY = y;
+			originalWidth = w;
+			originalHeight = h;
+			return this;
+		}
+
+		Node modes(int xMode, int yMode, int wMode, int hMode)
+		{
+			xPositionMode = xMode;
+			yPositionMode = yMode;
+			widthMode = wMode;
+			heightMode = hMode;
+			return this;
+		}
+
+		// Dynamic children share their parent's component id
+		Node dynamic(int x, int y, int w, int h)
+		{
+			Node child = new Node(id, this).bounds(x, y, w, h);
+			dynamicChildren.add(child);
+			return child;
+		}
+
+		boolean hidden()
+		{
+			return selfHidden || (parent != null && parent.hidden());
+		}
+
+		// Recomputes this widget's geometry against its parent, then every child's
+		void layout()
+		{
+			layoutVisits++;
+			final int parentWidth = parent == null ? canvasWidth : parent.width;
+			final int parentHeight = parent == null ? canvasHeight : parent.height;
+			width = size(widthMode, originalWidth, parentWidth);
+			height = size(heightMode, originalHeight, parentHeight);
+			relativeX = position(xPositionMode, originalX, parentWidth, width);
+			relativeY = position(yPositionMode, originalY, parentHeight, height);
+			for (Node child : staticChildren)
+			{
+				child.layout();
+			}
+			for (Node child : dynamicChildren)
+			{
+				child.layout();
+			}
+			for (Node child : nestedChildren)
+			{
+				child.layout();
+			}
+		}
+
+		private int canvasX()
+		{
+			return relativeX + (parent == null ? 0 : parent.canvasX());
+		}
+
+		private int canvasY()
+		{
+			return relativeY + (parent == null ? 0 : parent.canvasY());
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			final String name = method.getName();
+			if (name.startsWith("set"))
+			{
+				setterCalls++;
+			}
+			switch (name)
+			{
+				case "getId":
+					return id;
+				case "getParent":
+					return parent == null ? null : parent.widget;
+				case "getParentId":
+					return parent == null ? -1 : parent.id;
+				case "getStaticChildren":
+					return widgets(staticChildren);
+				case "getDynamicChildren":
+					return widgets(dynamicChildren);
+				case "getNestedChildren":
+					return widgets(nestedChildren);
+				case "getOriginalX":
+					return originalX;
+				case "getOriginalY":
+					return originalY;
+				case "getOriginalWidth":
+					return originalWidth;
+				case "getOriginalHeight":
+					return originalHeight;
+				case "getXPositionMode":
+					return xPositionMode;
+				case "getYPositionMode":
+					return yPositionMode;
+				case "getWidthMode":
+					return widthMode;
+				case "getHeightMode":
+					return heightMode;
+				case "getSpriteId":
+					return spriteId;
+				case "getRelativeX":
+					return relativeX;
+				case "getRelativeY":
+					return relativeY;
+				case "getWidth":
+					return width;
+				case "getHeight":
+					return height;
+				case "getCanvasLocation":
+					return new Point(canvasX(), canvasY());
+				case "isHidden":
+					return hidden();
+				case "isSelfHidden":
+					return selfHidden;
+				case "setOriginalX":
+					originalX = (int) args[0];
+					return proxy;
+				case "setOriginalY":
+					originalY = (int) args[0];
+					return proxy;
+				case "setOriginalWidth":
+					originalWidth = (int) args[0];
+					return proxy;
+				case "setOriginalHeight":
+					originalHeight = (int) args[0];
+					return proxy;
+				case "setXPositionMode":
+					xPositionMode = (int) args[0];
+					return proxy;
+				case "setYPositionMode":
+					yPositionMode = (int) args[0];
+					return proxy;
+				case "setWidthMode":
+					widthMode = (int) args[0];
+					return proxy;
+				case "setHeightMode":
+					heightMode = (int) args[0];
+					return proxy;
+				case "setSpriteId":
+					spriteId = (int) args[0];
+					return proxy;
+				case "setHidden":
+					selfHidden = (boolean) args[0];
+					return proxy;
+				case "revalidate":
+				case "revalidateScroll":
+					revalidations++;
+					layout();
+					return null;
+				case "deleteAllChildren":
+					dynamicChildren.clear();
+					return null;
+				case "createChild":
+					return dynamic(0, 0, 0, 0).widget;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return "SimWidget[" + (id >>> 16) + "." + (id & 0xFFFF) + "]";
+				default:
+					// Unmodeled setters are chainable, everything else reads as zero/null/false
+					return method.getReturnType() == Widget.class ? proxy : Stubs.defaultValue(method.getReturnType());
+			}
+		}
+
+		private Widget[] widgets(List<Node> nodes)
+		{
+			Widget[] result = new Widget[nodes.size()];
+			for (int i = 0; i < result.length; i++)
+			{
+				result[i] = nodes.get(i).widget;
+			}
+			return result;
+		}
+	}
+
+	private static int size(int mode, int original, int parentSize)
+	{
+		switch (mode)
+		{
+			case MINUS:
+				return Math.max(0, parentSize - original);
+			case 2: // proportional, original is in 1/16384ths
+				return parentSize * original >> 14;
+			default:
+				return original;
+		}
+	}
+
+	private static int position(int mode, int original, int parentSize, int size)
+	{
+		switch (mode)
+		{
+			case CENTER:
+				return (parentSize - size) / 2 + original;
+			case RIGHT:
+				return parentSize - size - original;
+			case 3: // proportional left/center/right, original is in 1/16384ths
+				return parentSize * original >> 14;
+			case 4:
+				return (parentSize * original >> 14) + (parentSize - size) / 2;
+			case 5:
+				return parentSize - size - (parentSize * original >> 14);
+			default:
+				return original;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package com.lapask;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.widgets.Widget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Saves, looks up and restores widget states with WidgetStateStore and with the HashMap<Integer, WidgetState> it
+// replaced (kept below as it was). A normal session saves a few dozen widgets, the larger counts are for several
+// interfaces with fixed up children open at once.
+// Both sides resolve widgets by id through the client and restore through the same WidgetMutator, so the difference is
+// the storage. Lookups are half hits and half misses, like the saved-state checks on interface children.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WidgetStateBenchmark
+{
+	// Interface groups the plugin saves widgets of: toplevel, orbs, chatbox, inventory and a few modals
+	private static final int[] GROUPS = {161, 160, 162, 149, 12, 192, 213, 398};
+
+	@Param({"32", "128", "512"})
+	public int widgets;
+
+	private final Stubs.StubClient stubClient = new Stubs.StubClient();
+	private final WidgetMutator mutator = new WidgetMutator(new PluginMetrics(), new WidgetMutationLog(), () -> {});
+	private Widget[] saved;
+	private int[] lookupIds;
+	private WidgetStateStore store;
+	private Map<Integer, WidgetState> map;
+
+	@Setup
+	public void setUp()
+	{
+		saved = new Widget[widgets];
+		lookupIds = new int[widgets * 2];
+		for (int i = 0; i < widgets; i++)
+		{
+			final int child = i / GROUPS.length;
+			final int componentId = GROUPS[i % GROUPS.length] << 16 | child;
+			saved[i] = Stubs.widget(componentId, 0, 0, 0, 0);
+			stubClient.widgets.put(componentId, saved[i]);
+			lookupIds[i * 2] = componentId;
+			// Children past the saved ones of the same interface
+			lookupIds[i * 2 + 1] = GROUPS[i % GROUPS.length] << 16 | (child + widgets);
+		}
+
+		store = new WidgetStateStore(mutator);
+		map = new HashMap<>();
+		saveStore();
+		saveMap();
+	}
+
+	@Benchmark
+	public int saveStore()
+	{
+		store.clear();
+		for (Widget widget : saved)
+		{
+			store.save(widget);
+		}
+		// Fixes run more than once, the second save of a widget must keep the first state
+		for (Widget widget : saved)
+		{
+			store.save(widget);
+		}
+		return store.size();
+	}
+
+	@Benchmark
+	public int saveMap()
+	{
+		map.clear();
+		for (Widget widget : saved)
+		{
+			saveMap(widget);
+		}
+		for (Widget widget : saved)
+		{
+			saveMap(widget);
+		}
+		return map.size();
+	}
+
+	@Benchmark
+	public long lookupStore()
+	{
+		long sum = 0;
+		for (int componentId : lookupIds)
+		{
+			final int slot = store.indexOf(componentId);
+			if (slot >= 0)
+			{
+				sum += store.getOriginalX(slot) + store.getOriginalWidth(slot) + 1;
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long lookupMap()
+	{
+		long sum = 0;
+		for (int componentId : lookupIds)
+		{
+			final WidgetState state = map.get(componentId);
+			if (state != null)
+			{
+				sum += state.originalX + state.originalWidth + 1;
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int restoreStore()
+	{
+		int restored = 0;
+		for (int slot = 0; slot < store.size(); slot++)
+		{
+			final Widget widget = stubClient.client.getWidget(store.getWidgetId(slot));
+			if (widget != null)
+			{
+				store.restore(slot, widget);
+				restored++;
+			}
+		}
+		return restored;
+	}
+
+	@Benchmark
+	public int restoreMap()
+	{
+		int restored = 0;
+		for (Map.Entry<Integer, WidgetState> entry : map.entrySet())
+		{
+			final Widget widget = stubClient.client.getWidget(entry.getKey());
+			if (widget != null)
+			{
+				final WidgetState state = entry.getValue();
+				mutator.setSpriteId(widget, state.spriteId);
+				mutator.setOriginalX(widget, state.originalX);
+				mutator.setOriginalY(widget, state.originalY);
+				mutator.setOriginalWidth(widget, state.originalWidth);
+				mutator.setOriginalHeight(widget, state.originalHeight);
+				mutator.setXPositionMode(widget, state.xPositionMode);
+				mutator.setYPositionMode(widget, state.yPositionMode);
+				mutator.setWidthMode(widget, state.widthMode);
+				mutator.setHeightMode(widget, state.heightMode);
+				mutator.setHidden(widget, state.selfHidden);
+				restored++;
+			}
+		}
+		return restored;
+	}
+
+	private void saveMap(Widget widget)
+	{
+		final int widgetId = widget.getId();
+		if (map.containsKey(widgetId))
+		{
+			return;
+		}
+		map.put(widgetId, new WidgetState(
+			widget.getSpriteId(),
+			widget.getOriginalX(),
+			widget.getOriginalY(),
+			widget.getOriginalWidth(),
+			widget.getOriginalHeight(),
+			widget.getXPositionMode(),
+			widget.getYPositionMode(),
+			widget.getWidthMode(),
+			widget.getHeightMode(),
+			widget.isHidden(),
+			widget.isSelfHidden()));
+	}
+
+	// The state object the plugin used to allocate per saved widget
+	private static final class WidgetState
+	{
+		final int spriteId;
+		final int originalX;
+		final int originalY;
+		final int originalWidth;
+		final int originalHeight;
+		final int xPositionMode;
+		final int yPositionMode;
+		final int widthMode;
+		final int heightMode;
+		final boolean hidden;
+		final boolean selfHidden;
+
+		WidgetState(int spriteId, int originalX, int originalY, int originalWidth, int originalHeight,
+			int xPositionMode, int yPositionMode, int widthMode, int heightMode, boolean hidden, boolean selfHidden)
+		{
+			this.spriteId = spriteId;
+			this.originalX = originalX;
+			this.originalY = originalY;
+			this.originalWidth = originalWidth;
+			this.originalHeight = originalHeight;
+			this.xPositionMode = xPositionMode;
+			this.yPositionMode = yPositionMode;
+			this.widthMode = widthMode;
+			this.heightMode = heightMode;
+			this.hidden = hidden;
+			this.selfHidden = selfHidden;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.lapask;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+// Decodes custom background images on a dedicated thread so large PNG/JPEGs don't stall plugin startup or the thread
+// delivering config events. Starting a new load cancels the previous one, and results of superseded loads are dropped.
+// Only the pixels that can actually be drawn are decoded: the image is subsampled horizontally down to roughly the
+// column width and cropped to the tallest client height, then subsampled vertically if it would still exceed the
+// memory budget. The stored tile stays within the budget as well.
+@Slf4j
+class BackgroundImageLoader
+{
+	// resizeClient() never makes the client taller than this, so rows below it can't be seen
+	private static final int MAX_CLIENT_HEIGHT = 2160;
+
+	private ExecutorService executor;
+	private Future<?> pendingLoad;
+	// Incremented by every load/cancel, a load only publishes its result if it's still the latest one
+	private int generation = 0;
+
+	// Decodes the image at path using at most budgetBytes for the decoded pixels and passes the normalized result
+	// (null if it couldn't be loaded) to onLoaded, on the loader thread.
+	synchronized void load(String path, long budgetBytes, Consumer<BufferedImage> onLoaded)
+	{
+		cancel();
+		final int loadGeneration = generation;
+		pendingLoad = executor().submit(() ->
+		{
+			BufferedImage image = decode(path, budgetBytes);
+			synchronized (this)
+			{
+				if (loadGeneration == generation)
+				{
+					pendingLoad = null;
+					onLoaded.accept(image);
+				}
+			}
+		});
+	}
+
+	synchronized void cancel()
+	{
+		generation++;
+		if (pendingLoad != null)
+		{
+			pendingLoad.cancel(true);
+			pendingLoad = null;
+		}
+	}
+
+	synchronized void shutDown()
+	{
+		cancel();
+		if (executor != null)
+		{
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private ExecutorService executor()
+	{
+		if (executor == null)
+		{
+			executor = Executors.newSingleThreadExecutor(runnable ->
+			{
+				Thread thread = new Thread(runnable, "fixed-resizable-hybrid-image-loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+
+	private static BufferedImage decode(String path, long budgetBytes)
+	{
+		final JfrEvents.ImageDecode jfr = JfrEvents.beginImageDecode();
+		File imageFile = new File(path);
+		if (!imageFile.exists())
+		{
+			log.warn("Custom background image file not found at path: {}", path);
+			return null;
+		}
+
+		try (ImageInputStream input = ImageIO.createImageInputStream(imageFile))
+		{
+			Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+			if (readers == null || !readers.hasNext())
+			{
+				log.warn("Unsupported custom background image format: {}", path);
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+			try
+			{
+				reader.setInput(input, true, true);
+				final int width = reader.getWidth(0);
+				final int height = reader.getHeight(0);
+
+				// Only the top MAX_CLIENT_HEIGHT rows are ever visible, and columns are scaled to OVERLAY_WIDTH anyway
+				final int rows = Math.min(height, MAX_CLIENT_HEIGHT);
+				final int xSubsampling = Math.max(1, width / FixedResizableHybridOverlay.OVERLAY_WIDTH);
+				final long decodedWidth = (width + xSubsampling - 1) / xSubsampling;
+				final long fullRowsBytes = decodedWidth * rows * 4;
+				final int ySubsampling = (int) Math.min(rows, Math.max(1, (fullRowsBytes + budgetBytes - 1) / budgetBytes));
+
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(new Rectangle(0, 0, width, rows));
+				param.setSourceSubsampling(xSubsampling, ySubsampling, 0, 0);
+				BufferedImage decoded = reader.read(0, param);
+
+				// Subsampled rows are scaled back up so the tile keeps its original height on screen, as far as the
+				// budget allows for the stored OVERLAY_WIDTH wide tile
+				final long budgetRows = budgetBytes / (FixedResizableHybridOverlay.OVERLAY_WIDTH * 4L);
+				final int storedRows = (int) Math.max(1, Math.min(rows, budgetRows));
+				BufferedImage tile = FixedResizableHybridOverlay.normalizeTile(decoded, storedRows);
+				log.info("Loaded custom background {}x{}: decoded {}x{} ({} KB, subsampling {}x{}), stored {}x{} ({} KB)",
+					width, height,
+					decoded.getWidth(), decoded.getHeight(), (long) decoded.getWidth() * decoded.getHeight() * 4 / 1024,
+					xSubsampling, ySubsampling,
+					tile.getWidth(), tile.getHeight(), (long) tile.getWidth() * tile.getHeight() * 4 / 1024);
+				if (jfr != null)
+				{
+					jfr.finish(width, height, decoded.getWidth(), decoded.getHeight(), xSubsampling, ySubsampling, tile.getHeight());
+				}
+				return tile;
+			}
+			finally
+			{
+				reader.dispose();
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			// Readers throw unchecked exceptions (IllegalArgumentException, ArrayIndexOutOfBoundsException, ...) for
+			// some malformed images too
+			log.error("Failed to load custom background image {}", path, e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.lapask;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+// Watches the custom background image for changes so edited art shows up without touching the config.
+// The image's directory is watched (WatchService can't watch single files) and events for other files are ignored.
+// Editors usually save in bursts (truncate + several writes, or write a temp file and rename it over the image), so
+// the callback only runs once no further event arrived for DEBOUNCE_MILLIS.
+@Slf4j
+class BackgroundImageWatcher
+{
+	private static final long DEBOUNCE_MILLIS = 250;
+
+	private WatchService watchService;
+	private Thread thread;
+	private Path watchedFile;
+
+	// Starts watching file, replacing any previous watch. onChanged runs on the watcher thread.
+	synchronized void watch(Path file, Runnable onChanged)
+	{
+		file = file.toAbsolutePath().normalize();
+		if (file.equals(watchedFile))
+		{
+			return;
+		}
+		stop();
+
+		Path directory = file.getParent();
+		if (directory == null)
+		{
+			log.warn("Can't watch custom background image without a parent directory: {}", file);
+			return;
+		}
+
+		WatchService service;
+		try
+		{
+			service = FileSystems.getDefault().newWatchService();
+			directory.register(service,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+		}
+		catch (IOException | UnsupportedOperationException e)
+		{
+			log.warn("Failed to watch custom background image directory: {}", directory, e);
+			return;
+		}
+
+		final Path fileName = file.getFileName();
+		watchService = service;
+		watchedFile = file;
+		thread = new Thread(() -> watchLoop(service, fileName, onChanged), "fixed-resizable-hybrid-image-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		log.debug("Watching custom background image {}", file);
+	}
+
+	synchronized void stop()
+	{
+		if (watchService == null)
+		{
+			return;
+		}
+		try
+		{
+			// Wakes the watcher thread with a ClosedWatchServiceException
+			watchService.close();
+		}
+		catch (IOException e)
+		{
+			log.debug("Failed to close custom background image watcher", e);
+		}
+		thread.interrupt();
+		watchService = null;
+		thread = null;
+		watchedFile = null;
+	}
+
+	private static void watchLoop(WatchService service, Path fileName, Runnable onChanged)
+	{
+		try
+		{
+			while (true)
+			{
+				if (!containsChange(service.take(), fileName))
+				{
+					continue;
+				}
+
+				// Keep collecting events until the file has been quiet for DEBOUNCE_MILLIS
+				WatchKey key;
+				while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null)
+				{
+					containsChange(key, fileName);
+				}
+
+				log.debug("Custom background image changed, reloading");
+				onChanged.run();
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException e)
+		{
+			// stop() was called
+		}
+	}
+
+	// Drains the key's events and returns whether one of them was about the watched file
+	private static boolean containsChange(WatchKey key, Path fileName)
+	{
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context()))
+			{
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+}
@@ -0,0 +1,211 @@
+package com.lapask;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+// Backing image of the overlay's column layer. A plain TYPE_INT_RGB image usually isn't in the render target's native
+// format, so every drawImage converts pixels. Depending on what probe() found fastest for the target the surface is
+// instead an image compatible with the target's GraphicsConfiguration, or a VolatileImage that the pipeline can keep
+// in video memory. Volatile contents can be lost at any time, callers redraw whenever validate()/contentsLost() say so.
+@Slf4j
+class ColumnSurface
+{
+	enum Kind
+	{
+		BUFFERED,
+		COMPATIBLE,
+		VOLATILE
+	}
+
+	private static final int PROBE_HEIGHT = 512;
+	private static final int PROBE_WARMUP = 10;
+	private static final int PROBE_ITERATIONS = 40;
+
+	@Getter
+	private final Kind kind;
+	// null for BUFFERED
+	private final GraphicsConfiguration configuration;
+	private Image image;
+	@Getter
+	private int width;
+	@Getter
+	private int height;
+
+	ColumnSurface(Kind kind, GraphicsConfiguration configuration)
+	{
+		this.kind = kind;
+		this.configuration = kind == Kind.BUFFERED ? null : configuration;
+	}
+
+	// Reallocates the surface if it's smaller than width x height. Returns true if it was reallocated, in which case
+	// its contents are undefined.
+	boolean ensureSize(int width, int height)
+	{
+		if (image != null && this.width == width && this.height >= height)
+		{
+			return false;
+		}
+		flush();
+		image = allocate(kind, configuration, width, height);
+		this.width = width;
+		this.height = height;
+		return true;
+	}
+
+	// Must be called before drawing from or into the surface. Returns true if its contents were lost and have to be
+	// redrawn, only ever the case for volatile surfaces.
+	boolean validate()
+	{
+		if (!(image instanceof VolatileImage))
+		{
+			return false;
+		}
+		VolatileImage volatileImage = (VolatileImage) image;
+		switch (volatileImage.validate(configuration))
+		{
+			case VolatileImage.IMAGE_OK:
+				return false;
+			case VolatileImage.IMAGE_INCOMPATIBLE:
+				// Released right away like in ensureSize(), the old image's video memory isn't freed until it's
+				// collected otherwise
+				image.flush();
+				image = allocate(kind, configuration, width, height);
+				return true;
+			default: // IMAGE_RESTORED
+				return true;
+		}
+	}
+
+	// Checked after drawing the surface, true means the frame showed garbage and the contents have to be redrawn
+	boolean contentsLost()
+	{
+		return image instanceof VolatileImage && ((VolatileImage) image).contentsLost();
+	}
+
+	Graphics2D createGraphics()
+	{
+		return image instanceof VolatileImage
+			? ((VolatileImage) image).createGraphics()
+			: ((BufferedImage) image).createGraphics();
+	}
+
+	// Draws the top width x rows of the surface at x, y
+	void draw(Graphics2D graphics, int x, int y, int rows)
+	{
+		draw(graphics, x, y, 0, 0, width, rows);
+	}
+
+	// Draws the w x h region at sx, sy of the surface at x, y
+	void draw(Graphics2D graphics, int x, int y, int sx, int sy, int w, int h)
+	{
+		graphics.drawImage(image, x, y, x + w, y + h, sx, sy, sx + w, sy + h, null);
+	}
+
+	// Releases the surface's resources (video memory for volatile surfaces), it's reallocated by the next ensureSize()
+	void flush()
+	{
+		if (image != null)
+		{
+			image.flush();
+			image = null;
+		}
+	}
+
+	private static Image allocate(Kind kind, GraphicsConfiguration configuration, int width, int height)
+	{
+		switch (kind)
+		{
+			case VOLATILE:
+				return configuration.createCompatibleVolatileImage(width, height, Transparency.OPAQUE);
+			case COMPATIBLE:
+				return configuration.createCompatibleImage(width, height, Transparency.OPAQUE);
+			default:
+				return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+	}
+
+	// Times drawing a width x PROBE_HEIGHT surface of every kind into an image compatible with the render target and
+	// returns the fastest. Volatile surfaces are skipped when headless, anything failing falls back to BUFFERED.
+	static Kind probe(GraphicsConfiguration target, int width)
+	{
+		if (target == null)
+		{
+			return Kind.BUFFERED;
+		}
+
+		Kind fastest = Kind.BUFFERED;
+		long fastestNanos = Long.MAX_VALUE;
+		for (Kind kind : Kind.values())
+		{
+			if (kind == Kind.VOLATILE && GraphicsEnvironment.isHeadless())
+			{
+				continue;
+			}
+
+			ColumnSurface surface = new ColumnSurface(kind, target);
+			BufferedImage destination = null;
+			try
+			{
+				destination = target.createCompatibleImage(width, PROBE_HEIGHT, Transparency.OPAQUE);
+				long nanos = time(surface, destination, width);
+				log.debug("Column surface probe: {} took {}ns per frame", kind, nanos);
+				if (nanos < fastestNanos)
+				{
+					fastest = kind;
+					fastestNanos = nanos;
+				}
+			}
+			catch (RuntimeException e)
+			{
+				log.debug("Column surface probe: {} is unavailable", kind, e);
+			}
+			finally
+			{
+				surface.flush();
+				if (destination != null)
+				{
+					destination.flush();
+				}
+			}
+		}
+		return fastest;
+	}
+
+	private static long time(ColumnSurface surface, BufferedImage destination, int width)
+	{
+		surface.ensureSize(width, PROBE_HEIGHT);
+		Graphics2D graphics = destination.createGraphics();
+		try
+		{
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < PROBE_WARMUP + PROBE_ITERATIONS; i++)
+			{
+				if (surface.validate() || i == 0)
+				{
+					Graphics2D g = surface.createGraphics();
+					g.fillRect(0, 0, width, PROBE_HEIGHT);
+					g.dispose();
+				}
+				long start = System.nanoTime();
+				surface.draw(graphics, 0, 0, PROBE_HEIGHT);
+				long nanos = System.nanoTime() - start;
+				if (i >= PROBE_WARMUP)
+				{
+					best = Math.min(best, nanos);
+				}
+			}
+			return best;
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+	}
+}
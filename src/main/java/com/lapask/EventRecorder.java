@@ -0,0 +1,347 @@
+package com.lapask;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+// Debug mode that writes the events the plugin reacts to into a compact binary log, so a real session can be replayed
+// against the widget simulator later (see EventReplayer in src/jmh).
+//
+// Format: int MAGIC, byte VERSION, then one record per event:
+//   byte type, varint microseconds since the previous record, then the type's fields as (zigzag) varints:
+//   SCRIPT_POST_FIRED scriptId | WIDGET_LOADED groupId | WIDGET_CLOSED groupId, unload (0/1)
+//   VARBIT_CHANGED varpId, varbitId, value | BEFORE_RENDER - | CANVAS_SIZE width, height | GAME_STATE_CHANGED state
+//   GAME_TICK -
+// CANVAS_SIZE is written before the next BEFORE_RENDER whenever the canvas size changed. VARBIT_CHANGED is only written
+// for the varbits the plugin handles, SCRIPT_POST_FIRED only for the scripts it handles.
+//
+// Records are encoded on the client thread into a 64KB in-memory buffer. Full buffers are handed to a daemon writer
+// thread, like WidgetMutationLog.dump() does, so the client thread never waits on the disk.
+// The time deltas are what the replay advances the plugin's clock by, so they're kept exact (no rounding drift).
+@Slf4j
+class EventRecorder
+{
+	static final int MAGIC = 0x46524845; // "FRHE"
+	static final int VERSION = 1;
+
+	static final int SCRIPT_POST_FIRED = 1;
+	static final int WIDGET_LOADED = 2;
+	static final int WIDGET_CLOSED = 3;
+	static final int VARBIT_CHANGED = 4;
+	static final int BEFORE_RENDER = 5;
+	static final int CANVAS_SIZE = 6;
+	static final int GAME_STATE_CHANGED = 7;
+	static final int GAME_TICK = 8;
+
+	private static final File RECORDING_DIR = new File(RuneLite.RUNELITE_DIR, "fixed-resizable-hybrid");
+	private static final int BUFFER_SIZE = 1 << 16;
+	// Type byte, a 64 bit varint delta and three 32 bit varint fields
+	private static final int MAX_RECORD_SIZE = 1 + 10 + 3 * 5;
+
+	private final LongSupplier nanoClock;
+	private volatile boolean recording = false;
+	// null while not recording
+	private Writer writer;
+	private byte[] buffer;
+	private int position;
+	private long events;
+	private long lastEventNanos;
+	private int lastCanvasWidth;
+	private int lastCanvasHeight;
+
+	EventRecorder()
+	{
+		this(System::nanoTime);
+	}
+
+	// For writing sessions with made up timing (see ReplayBenchmark)
+	EventRecorder(LongSupplier nanoClock)
+	{
+		this.nanoClock = nanoClock;
+	}
+
+	boolean isRecording()
+	{
+		return recording;
+	}
+
+	// Starts a new recording in .runelite/fixed-resizable-hybrid
+	void start()
+	{
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		start(new File(RECORDING_DIR, "events-" + timestamp + ".frhlog"));
+	}
+
+	synchronized void start(File file)
+	{
+		if (recording)
+		{
+			return;
+		}
+		try
+		{
+			File directory = file.getParentFile();
+			if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+			{
+				throw new IOException("Can't create " + directory);
+			}
+			writer = new Writer(file, new FileOutputStream(file));
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to start recording events", e);
+			return;
+		}
+		buffer = new byte[BUFFER_SIZE];
+		position = 0;
+		putInt(MAGIC);
+		put(VERSION);
+		events = 0;
+		lastEventNanos = nanoClock.getAsLong();
+		lastCanvasWidth = -1;
+		lastCanvasHeight = -1;
+		recording = true;
+		log.info("Recording plugin events to {}", file);
+	}
+
+	// Hands the rest of the buffer to the writer thread, which then closes the file. The returned future completes
+	// once it's closed (see ReplayBenchmark, which reads the recording right away).
+	synchronized Future<?> stop()
+	{
+		if (!recording)
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		recording = false;
+		writer.write(buffer, position);
+		Future<?> closed = writer.close(events);
+		writer = null;
+		buffer = null;
+		return closed;
+	}
+
+	synchronized void scriptPostFired(int scriptId)
+	{
+		if (header(SCRIPT_POST_FIRED))
+		{
+			write(scriptId);
+		}
+	}
+
+	synchronized void widgetLoaded(int groupId)
+	{
+		if (header(WIDGET_LOADED))
+		{
+			write(groupId);
+		}
+	}
+
+	synchronized void widgetClosed(int groupId, boolean unload)
+	{
+		if (header(WIDGET_CLOSED))
+		{
+			write(groupId);
+			write(unload ? 1 : 0);
+		}
+	}
+
+	synchronized void varbitChanged(int varpId, int varbitId, int value)
+	{
+		if (header(VARBIT_CHANGED))
+		{
+			write(varpId);
+			write(varbitId);
+			write(value);
+		}
+	}
+
+	synchronized void beforeRender(int canvasWidth, int canvasHeight)
+	{
+		if ((canvasWidth != lastCanvasWidth || canvasHeight != lastCanvasHeight) && header(CANVAS_SIZE))
+		{
+			lastCanvasWidth = canvasWidth;
+			lastCanvasHeight = canvasHeight;
+			write(canvasWidth);
+			write(canvasHeight);
+		}
+		header(BEFORE_RENDER);
+	}
+
+	synchronized void gameStateChanged(int state)
+	{
+		if (header(GAME_STATE_CHANGED))
+		{
+			write(state);
+		}
+	}
+
+	synchronized void gameTick()
+	{
+		header(GAME_TICK);
+	}
+
+	// Writes the record type and time delta, returns false if not recording (anymore). Hands the buffer to the writer
+	// thread first if the record might not fit, so the fields never have to check.
+	private boolean header(int type)
+	{
+		if (!recording)
+		{
+			return false;
+		}
+		if (position > BUFFER_SIZE - MAX_RECORD_SIZE)
+		{
+			writer.write(buffer, position);
+			buffer = new byte[BUFFER_SIZE];
+			position = 0;
+		}
+		long micros = (nanoClock.getAsLong() - lastEventNanos) / 1000;
+		put(type);
+		putVarLong(micros);
+		// Advanced by what was written, so the sub-microsecond remainders carry over to the next delta
+		lastEventNanos += micros * 1000;
+		events++;
+		return true;
+	}
+
+	private void write(int value)
+	{
+		putVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL); // zigzag, ids can be -1
+	}
+
+	private void put(int b)
+	{
+		buffer[position++] = (byte) b;
+	}
+
+	private void putInt(int value)
+	{
+		put(value >>> 24);
+		put(value >>> 16);
+		put(value >>> 8);
+		put(value);
+	}
+
+	private void putVarLong(long value)
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			put((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		put((int) value);
+	}
+
+	// Called on the writer thread when the file can't be written, stops the recording unless a new one was started
+	private synchronized void failed(Writer failedWriter)
+	{
+		if (writer == failedWriter)
+		{
+			recording = false;
+			writer = null;
+			buffer = null;
+		}
+	}
+
+	// The file of one recording. Buffers are written and the file is closed in the order they're handed over, on a
+	// dedicated daemon thread.
+	private final class Writer
+	{
+		private final File file;
+		private final OutputStream out;
+		private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "fixed-resizable-hybrid-event-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Only accessed on the writer thread
+		private boolean closed;
+
+		Writer(File file, OutputStream out)
+		{
+			this.file = file;
+			this.out = out;
+		}
+
+		// The buffer is owned by the writer thread from now on
+		void write(byte[] chunk, int length)
+		{
+			executor.execute(() ->
+			{
+				if (closed)
+				{
+					return;
+				}
+				try
+				{
+					out.write(chunk, 0, length);
+				}
+				catch (IOException e)
+				{
+					log.warn("Failed to write event recording, stopping", e);
+					closeQuietly();
+					failed(this);
+				}
+			});
+		}
+
+		Future<?> close(long events)
+		{
+			Future<?> done = executor.submit(() ->
+			{
+				if (!this.closed)
+				{
+					closeQuietly();
+					log.info("Stopped recording, {} events written to {}", events, file);
+				}
+			});
+			executor.shutdown();
+			return done;
+		}
+
+		private void closeQuietly()
+		{
+			closed = true;
+			try
+			{
+				out.close();
+			}
+			catch (IOException e)
+			{
+				log.debug("Failed to close event recording", e);
+			}
+		}
+	}
+
+	static long readVarLong(DataInput in) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+	}
+
+	// Reads a field written by write()
+	static int readInt(DataInput in) throws IOException
+	{
+		int zigzag = (int) readVarLong(in);
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
@@ -8,6 +8,8 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
+import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
 import com.lapask.config.BackgroundMode;
 
 @ConfigGroup("fixedresizablehybrid")
@@ -45,6 +47,14 @@ public interface FixedResizableHybridConfig extends Config
 	)
 	String resizingSettings = "resizingSettings";
 
+	@ConfigSection(
+		name = "Debug",
+		description = "Diagnostics for reporting and investigating issues",
+		position = 4,
+		closedByDefault = true
+	)
+	String debugSettings = "debugSettings";
+
 	@ConfigItem(
 		keyName = "aspectRatioResize",
 		name = "Aspect Ratio Resize",
@@ -183,6 +193,36 @@ public interface FixedResizableHybridConfig extends Config
 		return true;
 	}
 
+	@Range(
+		min = 1,
+		max = 64
+	)
+	@ConfigItem(
+		keyName = "customImageMemoryBudget",
+		name = "Custom Image Memory (MB)",
+		description = "Maximum memory used to decode and store the custom background image.<br>"
+			+ "Larger images are downsampled when they're loaded, only the part that can be shown is decoded.",
+		position = 5,
+		section = gapBackgroundSettings
+	)
+	default int customImageMemoryBudget()
+	{
+		return 8;
+	}
+
+	@ConfigItem(
+		keyName = "watchCustomImage",
+		name = "Reload Custom Image On Save",
+		description = "Automatically reloads the custom background image whenever the file changes.<br>"
+			+ "Useful while editing your own background.",
+		position = 6,
+		section = gapBackgroundSettings
+	)
+	default boolean watchCustomImage()
+	{
+		return false;
+	}
+
 	@ConfigItem(
 		keyName = "isWideChatbox",
 		name = "Wide Chatbox",
@@ -223,4 +263,55 @@ public interface FixedResizableHybridConfig extends Config
 	{
 		return true;
 	}
+
+	@ConfigItem(
+		keyName = "recordEvents",
+		name = "Record Events",
+		description = "Records the game events this plugin reacts to into .runelite/fixed-resizable-hybrid,<br>"
+			+ "so layout issues and slowdowns can be replayed and investigated. Leave off during normal play.",
+		position = 0,
+		section = debugSettings
+	)
+	default boolean recordEvents()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "metricsOverlay",
+		name = "Performance Overlay",
+		description = "Shows how often this plugin's event handlers and layout passes run, how long they take<br>"
+			+ "and how many widget changes they make.",
+		position = 1,
+		section = debugSettings
+	)
+	default boolean metricsOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "metricsLogSummary",
+		name = "Log Performance Summary",
+		description = "Writes the numbers from the performance overlay to the client log once a minute.",
+		position = 2,
+		section = debugSettings
+	)
+	default boolean metricsLogSummary()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "dumpMutationsHotkey",
+		name = "Dump Widget Changes",
+		description = "Writes the last widget changes this plugin made into .runelite/fixed-resizable-hybrid, for bug reports<br>"
+			+ "about missing or misplaced interface parts. The ::frhdump chat command does the same.",
+		position = 3,
+		section = debugSettings
+	)
+	default Keybind dumpMutationsHotkey()
+	{
+		return Keybind.NOT_SET;
+	}
 }
\ No newline at end of file
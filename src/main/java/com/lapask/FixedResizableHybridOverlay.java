@@ -2,12 +2,14 @@ package com.lapask;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import javax.inject.Inject;
 
 import com.lapask.config.BackgroundMode;
+import com.lapask.config.ConfigSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.gameval.InterfaceID;
@@ -20,215 +22,517 @@ import net.runelite.client.util.ImageUtil;
 @Slf4j
 public class FixedResizableHybridOverlay extends Overlay
 {
-	private static final int OVERLAY_WIDTH = 249;
+	static final int OVERLAY_WIDTH = 249;
+	// Minimum height of the background strip, short tiles are repeated inside the strip so rebuilding the column
+	// layer needs few blits
+	private static final int MIN_STRIP_HEIGHT = 256;
+	// The column layer grows in steps of this many rows so drag-resizing the window doesn't reallocate every frame
+	private static final int LAYER_HEIGHT_STEP = 256;
+	// Rows of the opaque minimap frame (the sprites added by createMinimapInvSprites()) at the top of MAP_CONTAINER.
+	// The container is taller than the frame, so only these rows are left out of the column. The gap border is drawn
+	// this many rows below the top of Orbs.UNIVERSE.
+	private static final int MINIMAP_FRAME_HEIGHT = 158;
 
 	private final Client client;
-	private final FixedResizableHybridConfig config;
+	private final FixedResizableHybridPlugin plugin;
 
 	private static final Image GAP_BORDER =
 		ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/border15px.png");
 	private static final Image TRANSPARENCY_WARNING =
 		ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/transparencyWarning.png");
+	// Stored pre-scaled to OVERLAY_WIDTH in the cache's pixel format, see normalizeTile()
 	private static final BufferedImage TILABLE_BACKGROUND =
-		ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/tilable_background.png");
+		normalizeTile(ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/tilable_background.png"));
 
+	// Normalized the same way as TILABLE_BACKGROUND when it's loaded, published by the image loader thread
 	private volatile BufferedImage customImage;
 	private volatile String lastCustomImagePath;
+	private volatile int lastCustomImageBudget;
+	private final BackgroundImageLoader imageLoader = new BackgroundImageLoader();
+	private final BackgroundImageWatcher imageWatcher = new BackgroundImageWatcher();
 
-	// Cache for the rendered background to avoid re-drawing/tiling each frame
-	private BufferedImage backgroundCache;
+	// One vertical period of the background, blitted down the column layer. Backgrounds are periodic in the tile
+	// height (solid color in any height), so the strip doesn't depend on the client height and resizing never
+	// reallocates it. For tiles at least MIN_STRIP_HEIGHT tall (e.g. non-tiling custom art) it's the tile itself.
+	private BufferedImage backgroundStrip;
+	// Strip owned by the overlay, kept to be reused when the next strip has the same height
+	private BufferedImage ownedStrip;
 	// Cache validation fields
-	private int lastClientHeight = -1;
+	private volatile boolean cacheInvalidated = true;
 	private BackgroundMode lastBackgroundMode;
 	private Color lastBackgroundColor;
 
+	// Fully composited column (background, gap borders, transparency warning and tint), drawn with a single drawImage
+	// per frame. Everything in it only changes with the layout or the config, so it's rebuilt when one of the inputs
+	// below differs from the current frame, see updateColumnLayer().
+	// The surface kind is picked by ColumnSurface.probe() on the first frame, against the render target.
+	private ColumnSurface columnLayer;
+	private boolean columnLayerDirty = true;
+	private ConfigSnapshot layerSnapshot;
+	private int layerX;
+	private int layerHeight;
+	private int layerInvX;
+	private int layerInvY;
+	private int layerInvWidth;
+	private int layerInvHeight;
+	private boolean layerInvVisible;
+	private int layerMapX;
+	private int layerMapY;
+	private int layerFrameX;
+	private int layerFrameY;
+	private int layerFrameWidth;
+	private int layerFrameHeight;
+	private boolean layerFrameVisible;
+
+	// Parts of the layer that aren't covered by the minimap frame, as x, y, width, height in layer coordinates.
+	// Only these are drawn each frame, recomputed whenever the layer is rebuilt. The inventory isn't treated as an
+	// occluder since its background shows through with the "Transparent Side Panel" setting.
+	private final int[] paintRects = new int[4 * 4];
+	private int paintRectCount;
+
+	// Returned by render(), reused instead of allocating a Dimension every frame
+	private final Dimension renderedSize = new Dimension();
+
 	@Inject
-	public FixedResizableHybridOverlay(Client client, FixedResizableHybridConfig config, FixedResizableHybridPlugin plugin)
+	public FixedResizableHybridOverlay(Client client, FixedResizableHybridPlugin plugin)
 	{
 		this.client = client;
-		this.config = config;
+		this.plugin = plugin;
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.UNDER_WIDGETS); // above background, below game widgets
-		updateCustomImage(config.customImagePath());
 	}
 
-	public void updateCustomImage(String path)
+	// Starts loading the custom background image in the background. The current background keeps being drawn until
+	// the new image has been decoded; changing the path again before then discards the stale load.
+	// The memory budget limits the memory used to decode the image, see BackgroundImageLoader. With watchCustomImage
+	// the image is also reloaded whenever the file changes, see BackgroundImageWatcher.
+	public void updateCustomImage(ConfigSnapshot snapshot)
 	{
+		final String path = snapshot.getCustomImagePath();
 		if (path == null || path.isEmpty())
 		{
+			imageWatcher.stop();
+			imageLoader.cancel();
 			customImage = null;
 			lastCustomImagePath = null;
 			invalidateCache();
 			return;
 		}
 
-		if (path.equals(lastCustomImagePath))
+		updateImageWatcher(path, snapshot.isWatchCustomImage());
+
+		final int budgetMegabytes = snapshot.getCustomImageMemoryBudget();
+		if (path.equals(lastCustomImagePath) && budgetMegabytes == lastCustomImageBudget)
 		{
 			return;
 		}
 
+		lastCustomImagePath = path;
+		lastCustomImageBudget = budgetMegabytes;
+		loadCustomImage(path, budgetMegabytes, false);
+	}
+
+	private void updateImageWatcher(String path, boolean watch)
+	{
+		if (!watch)
+		{
+			imageWatcher.stop();
+			return;
+		}
+
 		try
 		{
-			File imageFile = new File(path);
-			if (imageFile.exists())
+			// Reloads even though the path didn't change. The file can briefly be missing or half written while an
+			// editor saves it, so a failed reload keeps showing the previous image until the next change.
+			imageWatcher.watch(Paths.get(path), () -> loadCustomImage(path, lastCustomImageBudget, true));
+		}
+		catch (InvalidPathException e)
+		{
+			log.warn("Can't watch invalid custom background image path: {}", path);
+			imageWatcher.stop();
+		}
+	}
+
+	private void loadCustomImage(String path, int budgetMegabytes, boolean keepOnFailure)
+	{
+		imageLoader.load(path, budgetMegabytes * 1024L * 1024L, image ->
+		{
+			if (image == null && keepOnFailure)
 			{
-				customImage = ImageIO.read(imageFile);
-				lastCustomImagePath = path;
-				invalidateCache();
+				return;
 			}
-			else
+			customImage = image;
+			if (image == null)
 			{
-				customImage = null;
-				lastCustomImagePath = null;
-				invalidateCache();
-				log.warn("Custom background image file not found at path: {}", path);
+				lastCustomImagePath = null; // allows retrying the same path
 			}
-		}
-		catch (IOException e)
-		{
-			log.error("Failed to load custom background image", e);
-			customImage = null;
-			lastCustomImagePath = null;
 			invalidateCache();
+		});
+	}
+
+	// Stops the image loader and watcher threads, the image is loaded again by updateCustomImage() on the next startup
+	public void shutDown()
+	{
+		imageWatcher.stop();
+		imageLoader.shutDown();
+		customImage = null;
+		lastCustomImagePath = null;
+		invalidateCache();
+	}
+
+	// Releases the column layer (video memory for volatile surfaces) and the background strips, called on the client
+	// thread once the overlay was removed. The next startup probes the surface kind again and rebuilds both.
+	void releaseSurface()
+	{
+		if (columnLayer != null)
+		{
+			columnLayer.flush();
+			columnLayer = null;
 		}
+		backgroundStrip = null;
+		ownedStrip = null;
 	}
 
 
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		// Column geometry
-		Dimension clientDimensions = client.getRealDimensions();
-		int clientWidth = (int) clientDimensions.getWidth();
-		int clientHeight = (int) clientDimensions.getHeight();
-		Rectangle overlayBounds = new Rectangle(clientWidth - OVERLAY_WIDTH, 0, OVERLAY_WIDTH, clientHeight);
+		final PluginMetrics metrics = plugin.getMetrics();
+		final long timerStart = metrics.start(PluginMetrics.Timer.OVERLAY_RENDER);
+		try
+		{
+			final ConfigSnapshot snapshot = plugin.getConfigSnapshot();
+			if (snapshot == null)
+			{
+				return null;
+			}
+
+			// Column geometry. Kept in plain ints, like everything else on this path, so a frame that doesn't rebuild the
+			// layer allocates nothing.
+			final int columnX = client.getCanvasWidth() - OVERLAY_WIDTH;
+			final int columnHeight = client.getCanvasHeight();
 
-		// Cache widgets we reference more than once
-		Widget inventoryWidget = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
-		Widget minimapWidget = client.getWidget(InterfaceID.Orbs.UNIVERSE);
+			if (columnLayer == null)
+			{
+				createColumnSurface(graphics.getDeviceConfiguration());
+			}
 
-		// 1) Background
-		updateBackgroundCache(overlayBounds);
-		if (backgroundCache != null)
+			updateColumnLayer(columnX, columnHeight, snapshot);
+			// Only the uncovered parts of the layer are drawn, it can be taller than the client
+			for (int i = 0; i < paintRectCount * 4; i += 4)
+			{
+				columnLayer.draw(graphics,
+					columnX + paintRects[i], paintRects[i + 1],
+					paintRects[i], paintRects[i + 1], paintRects[i + 2], paintRects[i + 3]);
+			}
+			if (columnLayer.contentsLost())
+			{
+				columnLayerDirty = true; // lost while drawing, redrawn next frame
+			}
+
+			renderedSize.setSize(OVERLAY_WIDTH, columnHeight);
+			return renderedSize;
+		}
+		finally
 		{
-			// Draw the pre-rendered background cache. This is much faster than re-tiling every frame.
-			graphics.drawImage(backgroundCache, overlayBounds.x, overlayBounds.y, null);
+			metrics.stop(PluginMetrics.Timer.OVERLAY_RENDER, timerStart);
 		}
+	}
 
+	private void createColumnSurface(GraphicsConfiguration target)
+	{
+		ColumnSurface.Kind kind = ColumnSurface.probe(target, OVERLAY_WIDTH);
+		log.debug("Using {} surface for the gap column", kind);
+		columnLayer = new ColumnSurface(kind, target);
+		columnLayerDirty = true;
+	}
+
+	// Rebuilds the composited column if anything drawn into it changed: the background, the column's size/position,
+	// the inventory/minimap geometry the borders and warning are placed at, or the snapshot.
+	private void updateColumnLayer(int columnX, int columnHeight, ConfigSnapshot snapshot)
+	{
+		// Cached handles + canvas geometry, only recomputed after the layout changed
+		final WidgetCache widgetCache = plugin.getWidgetCache();
+		final int inventorySlot = widgetCache.geometry(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
+		final int minimapSlot = widgetCache.geometry(InterfaceID.Orbs.UNIVERSE);
+		final int frameSlot = widgetCache.geometry(InterfaceID.ToplevelOsrsStretch.MAP_CONTAINER);
+
+		final int invX = inventorySlot >= 0 ? widgetCache.getCanvasX(inventorySlot) : Integer.MIN_VALUE;
+		final int invY = inventorySlot >= 0 ? widgetCache.getCanvasY(inventorySlot) : Integer.MIN_VALUE;
+		final int invWidth = inventorySlot >= 0 ? widgetCache.getWidth(inventorySlot) : 0;
+		final int invHeight = inventorySlot >= 0 ? widgetCache.getHeight(inventorySlot) : 0;
+		final boolean invVisible = inventorySlot >= 0 && !widgetCache.getWidget(inventorySlot).isHidden();
+		final int mapX = minimapSlot >= 0 ? widgetCache.getCanvasX(minimapSlot) : Integer.MIN_VALUE;
+		final int mapY = minimapSlot >= 0 ? widgetCache.getCanvasY(minimapSlot) : Integer.MIN_VALUE;
+		// The frame sprites are drawn by MAP_MINIMAP inside the container, hiding either one hides the frame
+		final Widget frameSprites = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
+		final int frameX = frameSlot >= 0 ? widgetCache.getCanvasX(frameSlot) : Integer.MIN_VALUE;
+		final int frameY = frameSlot >= 0 ? widgetCache.getCanvasY(frameSlot) : Integer.MIN_VALUE;
+		final int frameWidth = frameSlot >= 0 ? widgetCache.getWidth(frameSlot) : 0;
+		final int frameHeight = frameSlot >= 0 ? Math.min(widgetCache.getHeight(frameSlot), MINIMAP_FRAME_HEIGHT) : 0;
+		final boolean frameVisible = frameSlot >= 0 && !widgetCache.getWidget(frameSlot).isHidden()
+			&& (frameSprites == null || !frameSprites.isHidden());
+
+		final boolean backgroundChanged = updateBackgroundCache(snapshot);
+		final boolean contentsLost = columnLayer.validate();
+		if (!backgroundChanged && !contentsLost && !columnLayerDirty && snapshot == layerSnapshot
+			&& columnX == layerX && columnHeight == layerHeight
+			&& invX == layerInvX && invY == layerInvY && invWidth == layerInvWidth && invHeight == layerInvHeight
+			&& invVisible == layerInvVisible && mapX == layerMapX && mapY == layerMapY
+			&& frameX == layerFrameX && frameY == layerFrameY && frameWidth == layerFrameWidth
+			&& frameHeight == layerFrameHeight && frameVisible == layerFrameVisible)
+		{
+			return;
+		}
+
+		// The strip redrawn by updateBackgroundCache() above isn't part of the event's duration, only flagged
+		final JfrEvents.BackgroundRebuild jfr = JfrEvents.beginBackgroundRebuild();
+		columnLayerDirty = false;
+		layerSnapshot = snapshot;
+		layerX = columnX;
+		layerHeight = columnHeight;
+		layerInvX = invX;
+		layerInvY = invY;
+		layerInvWidth = invWidth;
+		layerInvHeight = invHeight;
+		layerInvVisible = invVisible;
+		layerMapX = mapX;
+		layerMapY = mapY;
+		layerFrameX = frameX;
+		layerFrameY = frameY;
+		layerFrameWidth = frameWidth;
+		layerFrameHeight = frameHeight;
+		layerFrameVisible = frameVisible;
+		updatePaintRects(columnX, columnHeight, frameVisible, frameX, frameY, frameWidth, frameHeight);
 
-		// 2) Gap borders (optional)
-		if (config.useGapBorders())
+		// Grow-only, so drag-resizing the window doesn't reallocate every frame
+		if (columnLayer.getHeight() < columnHeight)
 		{
-			if (inventoryWidget != null)
+			int height = (columnHeight + LAYER_HEIGHT_STEP - 1) / LAYER_HEIGHT_STEP * LAYER_HEIGHT_STEP;
+			columnLayer.ensureSize(OVERLAY_WIDTH, Math.max(height, LAYER_HEIGHT_STEP));
+		}
+
+		Graphics2D g = columnLayer.createGraphics();
+		try
+		{
+			// Everything below is drawn in canvas coordinates, like it used to be drawn straight to the client
+			g.translate(-columnX, 0);
+
+			// 1) Background, the strip repeated down the column
+			if (backgroundStrip != null)
 			{
-				int borderX = inventoryWidget.getCanvasLocation().getX();
-				int borderY = inventoryWidget.getCanvasLocation().getY() - 15;
-				graphics.drawImage(GAP_BORDER, borderX, borderY, null);
+				final int stripHeight = backgroundStrip.getHeight();
+				for (int y = 0; y < columnHeight; y += stripHeight)
+				{
+					g.drawImage(backgroundStrip, columnX, y, null);
+				}
 			}
-			if (minimapWidget != null)
+
+			// 2) Gap borders (optional)
+			if (snapshot.isUseGapBorders())
 			{
-				int borderX = minimapWidget.getCanvasLocation().getX();
-				int borderY = minimapWidget.getCanvasLocation().getY() + 158;
-				graphics.drawImage(GAP_BORDER, borderX, borderY, null);
+				if (inventorySlot >= 0)
+				{
+					g.drawImage(GAP_BORDER, invX, invY - 15, null);
+				}
+				if (minimapSlot >= 0)
+				{
+					g.drawImage(GAP_BORDER, mapX, mapY + MINIMAP_FRAME_HEIGHT, null);
+				}
 			}
-		}
 
-		// 3) Inventory transparency warning (independent of gap borders)
-		if (config.invBackgroundWarning() && TRANSPARENCY_WARNING != null && inventoryWidget != null && !inventoryWidget.isHidden())
-		{
-			int invX = inventoryWidget.getCanvasLocation().getX();
-			int invY = inventoryWidget.getCanvasLocation().getY();
-			int invWidth = inventoryWidget.getWidth();
-			int invHeight = inventoryWidget.getHeight();
+			// 3) Inventory transparency warning (independent of gap borders), clipped to the inventory
+			if (snapshot.isInvBackgroundWarning() && TRANSPARENCY_WARNING != null && invVisible)
+			{
+				final int clipLeft = Math.max(invX, columnX);
+				final int clipTop = Math.max(invY, 0);
+				final int clipRight = Math.min(invX + invWidth, columnX + OVERLAY_WIDTH);
+				final int clipBottom = Math.min(invY + invHeight, columnHeight);
+				if (clipLeft < clipRight && clipTop < clipBottom)
+				{
+					g.setClip(clipLeft, clipTop, clipRight - clipLeft, clipBottom - clipTop);
+					g.drawImage(TRANSPARENCY_WARNING, invX, invY, null);
+					g.setClip(null);
+				}
+			}
 
-			Rectangle inventoryBounds = new Rectangle(invX, invY, invWidth, invHeight);
-			Rectangle paintBounds = inventoryBounds.intersection(overlayBounds);
-			if (!paintBounds.isEmpty())
+			// 4) Global tint over the column
+			Color tint = snapshot.getGapBackgroundTint();
+			if (tint.getAlpha() > 0)
 			{
-				Shape oldClip = graphics.getClip();
-				graphics.setClip(paintBounds);
-				graphics.drawImage(TRANSPARENCY_WARNING, invX, invY, null);
-				graphics.setClip(oldClip);
+				g.setComposite(AlphaComposite.SrcAtop);
+				g.setColor(tint);
+				g.fillRect(columnX, 0, OVERLAY_WIDTH, columnHeight);
 			}
 		}
-
-		// 4) Global tint over the column
-		Color tint = config.gapBackgroundTint();
-		if (tint.getAlpha() > 0)
+		finally
 		{
-			Composite oldComposite = graphics.getComposite();
-			graphics.setComposite(AlphaComposite.SrcAtop);
-			graphics.setColor(tint);
-			graphics.fillRect(overlayBounds.x, overlayBounds.y, overlayBounds.width, overlayBounds.height);
-			graphics.setComposite(oldComposite);
+			g.dispose();
 		}
 
-		return overlayBounds.getSize();
+		if (jfr != null)
+		{
+			jfr.finish(snapshot.getBackgroundMode().name(), backgroundChanged,
+				backgroundStrip != null ? backgroundStrip.getHeight() : 0,
+				columnHeight, columnLayer.getHeight(), paintRectCount);
+		}
 	}
 
-	private void updateBackgroundCache(Rectangle overlayBounds)
+	// Splits the column into the rectangles around the minimap frame: the rows above and below it, and the columns to
+	// its left and right if it doesn't span the whole width. The whole column is painted while the frame is hidden.
+	private void updatePaintRects(int columnX, int columnHeight, boolean frameVisible, int frameX, int frameY, int frameWidth,
+		int frameHeight)
 	{
-		final BackgroundMode currentMode = config.backgroundMode();
-		final Color currentBgColor = config.backgroundColor();
-		final int currentHeight = overlayBounds.height;
+		paintRectCount = 0;
+		final int columnRight = columnX + OVERLAY_WIDTH;
 
-		// Check if cache is still valid
-		if (backgroundCache != null && currentHeight == lastClientHeight && currentMode == lastBackgroundMode && currentBgColor.equals(lastBackgroundColor))
+		final int occluderLeft = Math.max(frameX, columnX);
+		final int occluderRight = Math.min(frameX + frameWidth, columnRight);
+		final int occluderTop = Math.max(frameY, 0);
+		final int occluderBottom = Math.min(frameY + frameHeight, columnHeight);
+		if (!frameVisible || occluderLeft >= occluderRight || occluderTop >= occluderBottom)
 		{
+			addPaintRect(columnX, columnX, 0, columnRight, columnHeight);
 			return;
 		}
 
+		addPaintRect(columnX, columnX, 0, columnRight, occluderTop);
+		addPaintRect(columnX, columnX, occluderBottom, columnRight, columnHeight);
+		addPaintRect(columnX, columnX, occluderTop, occluderLeft, occluderBottom);
+		addPaintRect(columnX, occluderRight, occluderTop, columnRight, occluderBottom);
+	}
+
+	// Adds the canvas rectangle [left, right) x [top, bottom) in layer coordinates, if it isn't empty
+	private void addPaintRect(int columnX, int left, int top, int right, int bottom)
+	{
+		if (left >= right || top >= bottom)
+		{
+			return;
+		}
+		final int i = paintRectCount++ * 4;
+		paintRects[i] = left - columnX;
+		paintRects[i + 1] = top;
+		paintRects[i + 2] = right - left;
+		paintRects[i + 3] = bottom - top;
+	}
+
+	// Returns true if the strip was redrawn
+	private boolean updateBackgroundCache(ConfigSnapshot snapshot)
+	{
+		final BackgroundMode currentMode = snapshot.getBackgroundMode();
+		final Color currentBgColor = snapshot.getBackgroundColor();
+
+		// Check if cache is still valid, the client height doesn't matter
+		if (backgroundStrip != null && !cacheInvalidated && currentMode == lastBackgroundMode && currentBgColor.equals(lastBackgroundColor))
+		{
+			return false;
+		}
+
 		// Invalidate and redraw the cache
-		lastClientHeight = currentHeight;
+		cacheInvalidated = false;
 		lastBackgroundMode = currentMode;
 		lastBackgroundColor = currentBgColor;
 
-		// Create a new cache image with the correct dimensions.
-		backgroundCache = new BufferedImage(overlayBounds.width, overlayBounds.height, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g = backgroundCache.createGraphics();
+		BufferedImage imageToTile = null;
+		if (currentMode == BackgroundMode.TILED_CUSTOM_IMAGE && customImage != null)
+		{
+			imageToTile = customImage;
+		}
+		else if (currentMode == BackgroundMode.TILED_STONE && TILABLE_BACKGROUND != null)
+		{
+			imageToTile = TILABLE_BACKGROUND;
+		}
 
-		try
+		if (imageToTile != null && imageToTile.getHeight() >= MIN_STRIP_HEIGHT)
 		{
-			BufferedImage imageToTile = null;
-			if (currentMode == BackgroundMode.TILED_CUSTOM_IMAGE && customImage != null)
-			{
-				imageToTile = customImage;
-			}
-			else if (currentMode == BackgroundMode.TILED_STONE && TILABLE_BACKGROUND != null)
+			// Already normalized, draw the tile as is
+			backgroundStrip = imageToTile;
+		}
+		else if (imageToTile != null)
+		{
+			// Smallest power of two multiple of the tile height that reaches MIN_STRIP_HEIGHT
+			int stripHeight = imageToTile.getHeight();
+			while (stripHeight < MIN_STRIP_HEIGHT)
 			{
-				imageToTile = TILABLE_BACKGROUND;
+				stripHeight *= 2;
 			}
-
-			if (imageToTile != null)
+			backgroundStrip = ownedStrip(stripHeight);
+			drawTiledImage(backgroundStrip, imageToTile);
+		}
+		else // Fallback to solid color
+		{
+			backgroundStrip = ownedStrip(MIN_STRIP_HEIGHT);
+			Graphics2D g = backgroundStrip.createGraphics();
+			try
 			{
-				drawTiledImage(g, overlayBounds.width, overlayBounds.height, imageToTile);
+				g.setColor(currentBgColor);
+				g.fillRect(0, 0, OVERLAY_WIDTH, MIN_STRIP_HEIGHT);
 			}
-			else // Fallback to solid color
+			finally
 			{
-				g.setColor(currentBgColor);
-				g.fillRect(0, 0, overlayBounds.width, overlayBounds.height);
+				g.dispose();
 			}
 		}
-		finally
+		return true;
+	}
+
+	private BufferedImage ownedStrip(int height)
+	{
+		if (ownedStrip == null || ownedStrip.getHeight() != height)
 		{
-			g.dispose();
+			ownedStrip = new BufferedImage(OVERLAY_WIDTH, height, BufferedImage.TYPE_INT_RGB);
 		}
+		return ownedStrip;
 	}
 
-	private void drawTiledImage(Graphics2D g, int width, int height, BufferedImage image)
+	// Tiles the (normalized) image vertically down the target. Both share the same width and pixel format, so every
+	// tile is a straight raster copy with no scaling or color conversion.
+	private static void drawTiledImage(BufferedImage target, BufferedImage tile)
 	{
-		int imageH = image.getHeight();
-		if (imageH <= 0) return;
+		WritableRaster targetRaster = target.getRaster();
+		Raster tileRaster = tile.getRaster();
+		int tileHeight = tile.getHeight();
+		for (int y = 0; y < target.getHeight(); y += tileHeight)
+		{
+			// setRect clips the last tile to the target's bounds
+			targetRaster.setRect(0, y, tileRaster);
+		}
+	}
+
+	// Scales a background image to the column width and converts it to TYPE_INT_RGB (the cache's format) once when
+	// it's loaded, so rebuilding the cache never rescales or converts pixels. Height is kept as is, matching how the
+	// images were stretched when tiled before. Returns null for missing/empty images.
+	static BufferedImage normalizeTile(BufferedImage image)
+	{
+		return image == null ? null : normalizeTile(image, image.getHeight());
+	}
 
-		// Tile the image vertically down the graphics context
-		for (int y = 0; y < height; y += imageH)
+	// Same as above, but also scales the image to the given height (used for images that were decoded subsampled)
+	static BufferedImage normalizeTile(BufferedImage image, int height)
+	{
+		if (image == null || image.getWidth() <= 0 || image.getHeight() <= 0 || height <= 0)
+		{
+			return null;
+		}
+		if (image.getWidth() == OVERLAY_WIDTH && image.getHeight() == height && image.getType() == BufferedImage.TYPE_INT_RGB)
 		{
-			g.drawImage(image, 0, y, width, imageH, null);
+			return image;
+		}
+		BufferedImage tile = new BufferedImage(OVERLAY_WIDTH, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = tile.createGraphics();
+		try
+		{
+			g.drawImage(image, 0, 0, OVERLAY_WIDTH, height, null);
+		}
+		finally
+		{
+			g.dispose();
 		}
+		return tile;
 	}
 
-	private void invalidateCache()
+	void invalidateCache()
 	{
-		lastClientHeight = -1; // Force a cache redraw on the next frame
+		cacheInvalidated = true; // Force a cache redraw on the next frame
 	}
 }
@@ -2,10 +2,12 @@ package com.lapask;
 
 import com.google.inject.Inject;
 import com.google.inject.Provides;
+import com.lapask.config.ConfigSnapshot;
 import com.lapask.config.OrbsPosition;
 import com.lapask.config.ResizeBy;
 import java.awt.image.BufferedImage;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.Constants;
 import net.runelite.api.GameState;
@@ -14,6 +16,7 @@ import net.runelite.api.SpriteID;
 import net.runelite.api.SpritePixels;
 import net.runelite.api.Varbits;
 import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.CommandExecuted;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ScriptPostFired;
@@ -30,12 +33,16 @@ import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.input.KeyManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import java.io.File;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
+import java.util.function.LongSupplier;
 import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.util.HotkeyListener;
 import net.runelite.client.util.ImageUtil;
 
 
@@ -66,17 +73,62 @@ public class FixedResizableHybridPlugin extends Plugin
 	@Inject
 	private FixedResizableHybridOverlay enabledOverlays;
 
+	@Inject
+	private WidgetCache widgetCache;
+
+	@Inject
+	private MetricsOverlay metricsOverlay;
+
+	@Inject
+	private KeyManager keyManager;
+
+	// Immutable copy of the config, rebuilt in onConfigChanged so hot paths never go through the config proxy
+	private volatile ConfigSnapshot configSnapshot;
 	private boolean resizeOnGameTick = false;
 	private boolean widgetsModified = false;
-	private final HashMap<Integer, WidgetState> originalStates = new HashMap<>();
+	// Handler/pass timings and widget write counts, see the "Performance Overlay"/"Log Performance Summary" options
+	private final PluginMetrics metrics = new PluginMetrics();
+	// Always-on record of the last widget writes, dumped with ::frhdump or the "Dump Widget Changes" hotkey
+	private final WidgetMutationLog mutationLog = new WidgetMutationLog();
+	// Any revalidation can move widgets, so it invalidates the geometry WidgetCache holds
+	private final WidgetMutator mutator = new WidgetMutator(metrics, mutationLog, () -> widgetCache.bumpLayoutGeneration());
+	private final HotkeyListener dumpMutationsHotkey = new HotkeyListener(() -> configSnapshot.getDumpMutationsHotkey())
+	{
+		@Override
+		public void hotkeyPressed()
+		{
+			clientThread.invoke(() -> dumpWidgetMutations());
+		}
+	};
+	private static final int METRICS_LOG_TICKS = 100; // one minute
+	private int metricsLogTicks = 0;
+	private final WidgetRevalidationQueue revalidationQueue = new WidgetRevalidationQueue(mutator);
+	private final ReinitScheduler reinitScheduler = new ReinitScheduler();
+	// Debug recording of the events below, see the "Record Events" option
+	private final EventRecorder eventRecorder = new EventRecorder();
+	// Window drag-resize handling (script 904), see onScriptPostFired() and onBeforeRender()
+	private static final long RESIZE_SETTLE_NANOS = 150_000_000L;
+	private boolean resizeSettlePending = false;
+	private long lastResizeNanos = 0;
+	// Clock of the settle debounce, the replay (see EventReplayer) drives it from the recorded event times instead
+	private LongSupplier nanoClock = System::nanoTime;
+	private final WidgetStateStore originalStates = new WidgetStateStore(mutator);
+	// Scratch buffers for ordering saved widgets by tree depth in resetOriginalStates()
+	private int[] resetOrder = new int[0];
+	private int[] resetDepths = new int[0];
 	private boolean widgetWithBackgroundLoaded = false;
 	private static final Set<String> onConfigChangedTriggerPlugins = Set.of("fixedresizablehybrid", "interfaceStyles", "runelite", "resourcepacks");
 	private final BufferedImage TILABLE_BACKGROUND_IMAGE = ImageUtil.loadImageResource(getClass(), "/tilable_background.png");
 	private final BufferedImage defaultChatboxBufferedImage = ImageUtil.loadImageResource(getClass(), "/chatbox.png");
-	private boolean cutSceneActive = false;
-	private boolean transparentChatbox = false;
+	// Layout mode, chat, cutscene and transparent chat state, kept up to date by the event handlers below
+	private final UiState uiState = new UiState();
 	private int wideChatViewportOffset = 23; //height of the buttons at the bottom of the chatbox
 	private List<Integer> widgetsToFixBeforeRender = new ArrayList<Integer>();
+	// Fingerprint of the inputs fixIngameOverlayWidgets() last ran against, used to skip the per-frame pass when unchanged
+	private int lastIngameOverlayFingerprint;
+	private boolean ingameOverlayFingerprintValid = false;
+	private long ingameOverlayPassesExecuted = 0;
+	private long ingameOverlayPassesSkipped = 0;
 	private static final Set<Integer> WIDGETS_WITH_BACKGROUNDS = Set.of(
 		398, // Fairy ring
 		416,  // Canoe interface (choose canoe)
@@ -112,6 +164,14 @@ public class FixedResizableHybridPlugin extends Plugin
 	protected void startUp() throws Exception
 	{
 		log.info("Fixed Hybrid Plugin started!");
+		configSnapshot = ConfigSnapshot.from(config);
+		enabledOverlays.updateCustomImage(configSnapshot);
+		if (configSnapshot.isRecordEvents())
+		{
+			eventRecorder.start();
+		}
+		updateMetrics();
+		keyManager.registerKeyListener(dumpMutationsHotkey);
 		if (client.getGameState() == GameState.LOGGED_IN)
 		{
 			queuePluginInitialization();
@@ -122,7 +182,19 @@ public class FixedResizableHybridPlugin extends Plugin
 	protected void shutDown() throws Exception
 	{
 		log.info("Fixed Resizable Hybrid Plugin stopped!");
+		log.debug("fixIngameOverlayWidgets(): {} passes executed, {} skipped", ingameOverlayPassesExecuted, ingameOverlayPassesSkipped);
+		log.debug("Widget revalidations: {} requested, {} performed, {} saved by batching",
+			revalidationQueue.getRequested(), revalidationQueue.getPerformed(), revalidationQueue.getSaved());
+		log.debug("Reinitializations: {} requested by config changes, {} executed", reinitScheduler.getRequested(), reinitScheduler.getExecuted());
+		reinitScheduler.cancel();
+		eventRecorder.stop();
+		overlayManager.remove(metricsOverlay);
+		clientThread.invoke(() -> metrics.setEnabled(false));
+		keyManager.unregisterKeyListener(dumpMutationsHotkey);
 		resetWidgets();
+		enabledOverlays.shutDown();
+		// Queued behind resetWidgets(), which removes the overlay, so no frame renders it after the release
+		clientThread.invoke(enabledOverlays::releaseSurface);
 	}
 
 	//Tried to avoid using onBeforeRender as much as possible, but there are some minigame widgets that get adjusted seemingly without a script
@@ -130,39 +202,67 @@ public class FixedResizableHybridPlugin extends Plugin
 	@Subscribe
 	public void onBeforeRender(final BeforeRender event)
 	{
-		if (!widgetsModified)
+		final long timerStart = metrics.start(PluginMetrics.Timer.BEFORE_RENDER);
+		try
 		{
-			return;
-		}
-		//Needs to occur every frame to ensure interface dimensions are set
-		fixIngameOverlayWidgets();
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.beforeRender(client.getCanvasWidth(), client.getCanvasHeight());
+			}
+			mutationLog.nextFrame();
+			mutationLog.setTrigger(WidgetMutationLog.BEFORE_RENDER, 0);
+			widgetCache.validateCanvasSize(client.getCanvasWidth(), client.getCanvasHeight());
+			// Revalidates everything the handlers since the last frame marked dirty, once per widget subtree
+			flushRevalidations();
+			if (!widgetsModified)
+			{
+				resizeSettlePending = false;
+				return;
+			}
 
-		//widgetsToFixBeforeRender contains the list of ids need to be processed (see specific UI groups in onWidget(Un)load)
-		//prevents widget/UI flickers when widgets are loaded and resized/centered to the viewport
-		//clears list after so it's run as little as possible
-		if (!widgetsToFixBeforeRender.isEmpty())
-		{
-			//log.debug("widgetsToFixBeforeRender being processed");
-			for (Integer identifier : widgetsToFixBeforeRender)
+			// Trailing edge of a window resize: no script 904 for a while, so run the full wide chat fix-up once
+			if (resizeSettlePending && nanoClock.getAsLong() - lastResizeNanos >= RESIZE_SETTLE_NANOS)
+			{
+				resizeSettlePending = false;
+				refreshChatboxOpen();
+				chatboxChanged();
+				widenChat();
+			}
+
+			//Needs to be checked every frame to ensure interface dimensions are set, but only reapplied when something changed
+			fixIngameOverlayWidgetsIfChanged();
+
+			//widgetsToFixBeforeRender contains the list of ids need to be processed (see specific UI groups in onWidget(Un)load)
+			//prevents widget/UI flickers when widgets are loaded and resized/centered to the viewport
+			//clears list after so it's run as little as possible
+			if (!widgetsToFixBeforeRender.isEmpty())
 			{
-				switch (identifier)
+				//log.debug("widgetsToFixBeforeRender being processed");
+				for (Integer identifier : widgetsToFixBeforeRender)
 				{
-					case InterfaceID.SkillGuide.UNIVERSE:
-						fixStatsGuide();
-						break;
-					case 398: // Fairy Ring
-					case 416:
-					case 647:
-					case 224: // Boat travelling (e.g., to Neitiznot)
-					case 469: // balloon
-					case 299: // port sarim boat
-						fixWidgetBackground();
-						break;
-					default:
-						break;
+					switch (identifier)
+					{
+						case InterfaceID.SkillGuide.UNIVERSE:
+							fixStatsGuide();
+							break;
+						case 398: // Fairy Ring
+						case 416:
+						case 647:
+						case 224: // Boat travelling (e.g., to Neitiznot)
+						case 469: // balloon
+						case 299: // port sarim boat
+							fixWidgetBackground();
+							break;
+						default:
+							break;
+					}
 				}
+				widgetsToFixBeforeRender.clear();
 			}
-			widgetsToFixBeforeRender.clear();
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.BEFORE_RENDER, timerStart);
 		}
 	}
 
@@ -183,157 +283,354 @@ public class FixedResizableHybridPlugin extends Plugin
 		}
 		if ("fixedresizablehybrid".equals(group))
 		{
-			if ("customImagePath".equals(key))
+			configSnapshot = ConfigSnapshot.from(config);
+			ingameOverlayFingerprintValid = false;
+			if ("customImagePath".equals(key) || "customImageMemoryBudget".equals(key) || "watchCustomImage".equals(key))
 			{
-				enabledOverlays.updateCustomImage(config.customImagePath());
+				enabledOverlays.updateCustomImage(configSnapshot);
 				return;
 			}
-
-			clientThread.invoke(() ->
+			if ("recordEvents".equals(key))
 			{
-				if ("aspectRatioResize".equals(key) && config.aspectRatioResize())
-				{
-					resizeByAspectRatio();
-				}
-				else if ("chatboxViewportCentering".equals(key) && transparentChatbox)
+				if (configSnapshot.isRecordEvents())
 				{
-					configManager.setConfiguration("fixedresizablehybrid", "chatboxViewportCentering", false);
+					eventRecorder.start();
 				}
 				else
 				{
-					resetWidgets();
-					queuePluginInitialization();
+					eventRecorder.stop();
 				}
-			});
+				return;
+			}
+			if ("metricsOverlay".equals(key) || "metricsLogSummary".equals(key))
+			{
+				updateMetrics();
+				return;
+			}
+			if ("dumpMutationsHotkey".equals(key))
+			{
+				// Read from the snapshot by the hotkey listener
+				return;
+			}
+
+			clientThread.invoke(() -> applyConfigChange(key));
+		}
+		else
+		{
+			// Interface style/resource pack changes arrive in bursts, rebuild once on the next tick
+			reinitScheduler.request();
+		}
+	}
+
+	// Metrics are only collected while the overlay or the log summary uses them
+	private void updateMetrics()
+	{
+		final boolean enabled = configSnapshot.isMetricsOverlay() || configSnapshot.isMetricsLogSummary();
+		clientThread.invoke(() -> metrics.setEnabled(enabled));
+		if (configSnapshot.isMetricsOverlay())
+		{
+			overlayManager.add(metricsOverlay);
 		}
 		else
 		{
-			clientThread.invoke(() ->
+			overlayManager.remove(metricsOverlay);
+		}
+	}
+
+	// Applies a change to one of this plugin's config keys with the smallest fix-up that covers it, instead of tearing
+	// down and rebuilding every widget. Keys that change which widgets get created/modified (e.g. isWideChatbox) still
+	// fall back to a full reset + reinitialization.
+	private void applyConfigChange(String key)
+	{
+		final long timerStart = metrics.start(PluginMetrics.Timer.CONFIG_CHANGED);
+		try
+		{
+			mutationLog.setTrigger(WidgetMutationLog.CONFIG_CHANGED, 0);
+			switch (key)
 			{
-				resetWidgets();
-				queuePluginInitialization();
-			});
+				case "aspectRatioResize":
+				case "resizeBy":
+				case "aspectRatioWidthResize":
+				case "aspectRatioHeightResize":
+					// Does nothing if aspect ratio resizing is disabled
+					resizeByAspectRatio();
+					return;
+				case "useGapBorders":
+				case "backgroundMode":
+				case "BackgroundColor":
+				case "gapBackgroundTint":
+				case "invBackgroundWarning":
+					// Overlay only, widgets are unaffected
+					enabledOverlays.invalidateCache();
+					return;
+				case "chatboxViewportCentering":
+					if (uiState.isTransparentChatbox())
+					{
+						configManager.setConfiguration("fixedresizablehybrid", "chatboxViewportCentering", false);
+						return;
+					}
+					break;
+				default:
+					break;
+			}
+
+			if (!widgetsModified)
+			{
+				// Not initialized (e.g. not in classic-resizable), the new values are picked up on initialization
+				return;
+			}
+
+			switch (key)
+			{
+				case "orbsPosition":
+					positionOrbs();
+					break;
+				case "centerChatboxButtons":
+					if (configSnapshot.isWideChatbox())
+					{
+						positionChatboxButtons();
+					}
+					break;
+				case "chatboxViewportCentering":
+					// Recalculates the viewport height and interface bounds, does nothing unless wide chat is enabled
+					chatboxChanged();
+					break;
+				default:
+					reinitScheduler.request();
+					break;
+			}
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.CONFIG_CHANGED, timerStart);
 		}
 	}
 
 	@Subscribe
 	public void onScriptPostFired(ScriptPostFired event)
 	{
-		int scriptId = event.getScriptId();
-		switch (scriptId)
+		final long timerStart = metrics.start(PluginMetrics.Timer.SCRIPT_POST_FIRED);
+		try
 		{
-			case 909: // Interface boxes recalculated (e.g., bank inventory, settings panel, etc)
-				//log.debug("script 909: fixInterfaceDimensions()");
-				fixInterfaceDimensions();
-				break;
-			case 654: // Stats guide widget opened (osb>214.0>214.1)
-				widgetsToFixBeforeRender.add(InterfaceID.SkillGuide.UNIVERSE);
-				break;
-			case 904: // Window resized
-				if (widgetsModified && config.isWideChatbox() && getGameClientLayout() == 2)
-				{
-					//log.debug("script 904: widenChat() for window resize");
-					chatboxChanged();
-					widenChat();
-				}
-				break;
-			case 1699: // [clientscript,orbs_worldmap_setup]: Right-aligned minimap orbs repositioned
-			case 3305:
-				//log.debug("script 1699/3305: fixWorldMapWikiStoreActAdvOrbs()");
-				fixWorldMapWikiStoreActAdvOrbs();
-				fixInterfaceDimensions();
-				repositionMinimapWidgets();
-				break;
-			case 902: // Inventory background changed, revert it back to its old sprite and unhide inv if in cutscene
-				// Also fail-safe for loading sprites
-				//log.debug("script 902: fixInvBackground(), checkMinimapSprites(), unhide invWidget during cutscene");
-				checkMinimapSprites();
-				fixInvBackground();
-				if (cutSceneActive)
-				{
-					Widget invWidget = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
-					if (invWidget != null && invWidget.isHidden())
+			int scriptId = event.getScriptId();
+			// Every other script is ignored (and not recorded)
+			if (!isHandledScript(scriptId))
+			{
+				return;
+			}
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.scriptPostFired(scriptId);
+			}
+			mutationLog.setTrigger(WidgetMutationLog.SCRIPT_POST_FIRED, scriptId);
+			// Only allocated while a recording has the event enabled
+			final JfrEvents.ScriptFixUp jfr = JfrEvents.beginScriptFixUp();
+			final long writes = mutator.getWrites();
+			final long revalidations = mutator.getRevalidations();
+			final long queued = revalidationQueue.getRequested();
+			switch (scriptId)
+			{
+				case 909: // Interface boxes recalculated (e.g., bank inventory, settings panel, etc)
+					//log.debug("script 909: fixInterfaceDimensions()");
+					fixInterfaceDimensions();
+					break;
+				case 654: // Stats guide widget opened (osb>214.0>214.1)
+					widgetsToFixBeforeRender.add(InterfaceID.SkillGuide.UNIVERSE);
+					break;
+				case 904: // Window resized
+					widgetCache.bumpLayoutGeneration();
+					if (widgetsModified && configSnapshot.isWideChatbox() && uiState.getGameClientLayout() == 2)
 					{
-						invWidget.setHidden(false);
+						// Fires for every intermediate size while the window is dragged. The first resize of a burst gets the
+						// full fix-up, the rest only keep the chat spanning the viewport until the size settles
+						// (see onBeforeRender()).
+						if (!resizeSettlePending)
+						{
+							refreshChatboxOpen();
+							//log.debug("script 904: widenChat() for window resize");
+							chatboxChanged();
+							widenChat();
+						}
+						else
+						{
+							widenChatProvisional();
+						}
+						resizeSettlePending = true;
+						lastResizeNanos = nanoClock.getAsLong();
 					}
-				}
-				break;
-			case 901: // Game Interface Mode changes
-				//log.debug("script 901: gameClientLayoutChanged()");
-				gameClientLayoutChanged();
-				break;
+					break;
+				case 1699: // [clientscript,orbs_worldmap_setup]: Right-aligned minimap orbs repositioned
+				case 3305:
+					//log.debug("script 1699/3305: fixWorldMapWikiStoreActAdvOrbs()");
+					fixWorldMapWikiStoreActAdvOrbs();
+					fixInterfaceDimensions();
+					repositionMinimapWidgets();
+					break;
+				case 902: // Inventory background changed, revert it back to its old sprite and unhide inv if in cutscene
+					// Also fail-safe for loading sprites
+					//log.debug("script 902: fixInvBackground(), checkMinimapSprites(), unhide invWidget during cutscene");
+					checkMinimapSprites();
+					fixInvBackground();
+					if (uiState.isCutSceneActive())
+					{
+						Widget invWidget = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
+						if (invWidget != null && invWidget.isHidden())
+						{
+							mutator.setHidden(invWidget, false);
+						}
+					}
+					break;
+				case 901: // Game Interface Mode changes
+					//log.debug("script 901: gameClientLayoutChanged()");
+					// Switching layouts swaps the toplevel interface, so none of the cached handles are valid anymore
+					widgetCache.invalidateAll();
+					gameClientLayoutChanged();
+					break;
+				case 175:
+				case 178:
+				case ScriptID.MESSAGE_LAYER_OPEN:
+				case ScriptID.MESSAGE_LAYER_CLOSE: //cases 113 and 664 removed d/t redundancy
+					// Chatbox opens/closes
+					refreshChatboxOpen();
+					if (configSnapshot.isWideChatbox())
+					{
+						//log.debug("script 175/178/messagelayeropen/close, chatboxChanged() and widenChat()");
+						chatboxChanged();
+						widenChat();
+						if (widgetWithBackgroundLoaded)
+						{
+							fixWidgetBackground();
+						}
+					}
+					break;
+				case 4731:
+					// TOB widget fix (party orbs flicker if omitted)
+					fixIngameOverlayWidgets();
+					break;
+			}
+			if (jfr != null)
+			{
+				jfr.finish(scriptId, client.getCanvasWidth(), client.getCanvasHeight(),
+					mutator.getWrites() - writes, mutator.getRevalidations() - revalidations,
+					revalidationQueue.getRequested() - queued);
+			}
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.SCRIPT_POST_FIRED, timerStart);
+		}
+	}
+
+	// The scripts onScriptPostFired() has a case for, keep both in sync
+	private static boolean isHandledScript(int scriptId)
+	{
+		switch (scriptId)
+		{
+			case 909:
+			case 654:
+			case 904:
+			case 1699:
+			case 3305:
+			case 902:
+			case 901:
 			case 175:
 			case 178:
 			case ScriptID.MESSAGE_LAYER_OPEN:
-			case ScriptID.MESSAGE_LAYER_CLOSE: //cases 113 and 664 removed d/t redundancy
-				// Chatbox opens/closes
-				if (config.isWideChatbox())
-				{
-					//log.debug("script 175/178/messagelayeropen/close, chatboxChanged() and widenChat()");
-					chatboxChanged();
-					widenChat();
-					if (widgetWithBackgroundLoaded)
-					{
-						fixWidgetBackground();
-					}
-				}
-				break;
+			case ScriptID.MESSAGE_LAYER_CLOSE:
 			case 4731:
-				// TOB widget fix (party orbs flicker if omitted)
-				fixIngameOverlayWidgets();
-				break;
+				return true;
 			default:
-				break;
+				return false;
 		}
 	}
 
 	@Subscribe
 	public void onVarbitChanged(VarbitChanged event)
 	{
-		//cutscene
-		if (event.getVarbitId() == 542)
+		final long timerStart = metrics.start(PluginMetrics.Timer.VARBIT_CHANGED);
+		try
 		{
-			if (event.getValue() == 1)
+			// Only the cutscene and transparent chatbox varbits are handled, every other varp/varbit change is ignored
+			// (and not recorded)
+			if (event.getVarbitId() != 542 && event.getVarbitId() != Varbits.TRANSPARENT_CHATBOX)
 			{
-				cutSceneActive = true;
+				return;
 			}
-			else
+			if (eventRecorder.isRecording())
 			{
-				cutSceneActive = false;
+				eventRecorder.varbitChanged(event.getVarpId(), event.getVarbitId(), event.getValue());
 			}
-			clientThread.invokeLater(() -> {
-				chatboxChanged();
-				widenChat();
-			});
-		}
-		else if (event.getVarbitId() == Varbits.TRANSPARENT_CHATBOX)
-		{
-			if (event.getValue() == 1)
+			mutationLog.setTrigger(WidgetMutationLog.VARBIT_CHANGED, event.getVarbitId());
+			//cutscene
+			if (event.getVarbitId() == 542)
 			{
-				transparentChatbox = true;
-				wideChatViewportOffset = 0;
-				configManager.setConfiguration(
-					"fixedresizablehybrid",
-					"chatboxViewportCentering",
-					false
-				);
+				uiState.setCutSceneActive(event.getValue() == 1);
+				clientThread.invokeLater(() -> {
+					mutationLog.setTrigger(WidgetMutationLog.VARBIT_CHANGED, 542);
+					refreshChatboxOpen();
+					chatboxChanged();
+					widenChat();
+				});
 			}
-			else if (event.getValue() == 0)
+			else if (event.getVarbitId() == Varbits.TRANSPARENT_CHATBOX)
 			{
-				transparentChatbox = false;
-				wideChatViewportOffset = 23;
+				if (event.getValue() == 1)
+				{
+					uiState.setTransparentChatbox(true);
+					wideChatViewportOffset = 0;
+					configManager.setConfiguration(
+						"fixedresizablehybrid",
+						"chatboxViewportCentering",
+						false
+					);
+				}
+				else if (event.getValue() == 0)
+				{
+					uiState.setTransparentChatbox(false);
+					wideChatViewportOffset = 23;
+				}
 			}
 		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.VARBIT_CHANGED, timerStart);
+		}
 	}
 
 	@Subscribe
 	public void onGameTick(GameTick gameTick)
 	{
-		if (resizeOnGameTick)
+		final long timerStart = metrics.start(PluginMetrics.Timer.GAME_TICK);
+		try
 		{
-			//log.debug("onGameTick(): triggered for resize (AR)");
-			resizeByAspectRatio();
-			resizeOnGameTick = false;
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.gameTick();
+			}
+			mutationLog.setTrigger(WidgetMutationLog.GAME_TICK, 0);
+			if (reinitScheduler.takePending())
+			{
+				//log.debug("onGameTick(): coalesced reinit");
+				resetWidgets();
+				queuePluginInitialization();
+			}
+
+			if (resizeOnGameTick)
+			{
+				//log.debug("onGameTick(): triggered for resize (AR)");
+				resizeByAspectRatio();
+				resizeOnGameTick = false;
+			}
+
+			if (configSnapshot.isMetricsLogSummary() && metrics.isEnabled() && ++metricsLogTicks >= METRICS_LOG_TICKS)
+			{
+				metricsLogTicks = 0;
+				log.info(metrics.summary());
+			}
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.GAME_TICK, timerStart);
 		}
 	}
 
@@ -341,28 +638,93 @@ public class FixedResizableHybridPlugin extends Plugin
 	@Subscribe
 	public void onWidgetLoaded(WidgetLoaded event)
 	{
-		int groupID = event.getGroupId();
+		final long timerStart = metrics.start(PluginMetrics.Timer.WIDGET_LOADED);
+		try
+		{
+			int groupID = event.getGroupId();
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.widgetLoaded(groupID);
+			}
+			widgetCache.invalidateGroup(groupID);
 
-		//log.debug("Widget loaded: {}", groupID);
-		if (WIDGETS_WITH_BACKGROUNDS.contains(groupID))
+			//log.debug("Widget loaded: {}", groupID);
+			if (WIDGETS_WITH_BACKGROUNDS.contains(groupID))
+			{
+				widgetWithBackgroundLoaded = true;
+				widgetsToFixBeforeRender.add(groupID);
+			}
+		}
+		finally
 		{
-			widgetWithBackgroundLoaded = true;
-			widgetsToFixBeforeRender.add(groupID);
+			metrics.stop(PluginMetrics.Timer.WIDGET_LOADED, timerStart);
 		}
 	}
 
 	@Subscribe
 	public void onWidgetClosed(WidgetClosed event)
 	{
-		int groupID = event.getGroupId();
+		final long timerStart = metrics.start(PluginMetrics.Timer.WIDGET_CLOSED);
+		try
+		{
+			int groupID = event.getGroupId();
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.widgetClosed(groupID, event.isUnload());
+			}
+			widgetCache.invalidateGroup(groupID);
 
-		if (WIDGETS_WITH_BACKGROUNDS.contains(groupID) && event.isUnload())
+			if (WIDGETS_WITH_BACKGROUNDS.contains(groupID) && event.isUnload())
+			{
+				//log.debug("onWidgetClosed(): fairy ring closed");
+				widgetWithBackgroundLoaded = false;
+			}
+		}
+		finally
 		{
-			//log.debug("onWidgetClosed(): fairy ring closed");
-			widgetWithBackgroundLoaded = false;
+			metrics.stop(PluginMetrics.Timer.WIDGET_CLOSED, timerStart);
 		}
 	}
 
+	@Subscribe
+	public void onCommandExecuted(CommandExecuted event)
+	{
+		if ("frhdump".equalsIgnoreCase(event.getCommand()))
+		{
+			dumpWidgetMutations();
+		}
+	}
+
+	// Writes the recent widget writes to a file for bug reports, see WidgetMutationLog
+	private void dumpWidgetMutations()
+	{
+		final int count = mutationLog.size();
+		final File file = mutationLog.dump();
+		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+			"Fixed Resizable Hybrid: writing the last " + count + " widget changes to " + file, null);
+	}
+
+	ConfigSnapshot getConfigSnapshot()
+	{
+		return configSnapshot;
+	}
+
+	WidgetCache getWidgetCache()
+	{
+		return widgetCache;
+	}
+
+	PluginMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	// Applies the queued widget revalidations, each one invalidates any widget geometry cached before it (see WidgetMutator)
+	private void flushRevalidations()
+	{
+		revalidationQueue.flush();
+	}
+
 	// Will continue trying to initialize until the GameState has been stabilized as logged in (e.g. layout == 2 or 3)
 	// For some reason you can't use invoke() here or else it will delete the minimap orbs when you change interface mode.
 	private void queuePluginInitialization()
@@ -371,8 +733,8 @@ public class FixedResizableHybridPlugin extends Plugin
 		//invokeLater will keep running until it returns true
 		clientThread.invokeLater(() ->
 		{
-			// Uses getGameClientLayout() to determine when the game is ready to be initialized.
-			int gameClientLayout = getGameClientLayout();
+			// Uses refreshGameClientLayout() to determine when the game is ready to be initialized.
+			int gameClientLayout = refreshGameClientLayout();
 			if (gameClientLayout != -1)
 			{
 				if (gameClientLayout == 2)
@@ -390,11 +752,22 @@ public class FixedResizableHybridPlugin extends Plugin
 	// Also resizes 16:9 if config option is true.
 	private void initializePlugin()
 	{
+		mutationLog.setTrigger(WidgetMutationLog.INITIALIZATION, 0);
+		final JfrEvents.Initialization jfr = JfrEvents.beginInitialization();
+		final long writes = mutator.getWrites();
+		final long revalidations = mutator.getRevalidations();
+		final long queued = revalidationQueue.getRequested();
+
+		// Widgets that weren't loaded yet when they were last looked up (e.g. by the overlay while logging in) are
+		// looked up again
+		widgetCache.bumpLayoutGeneration();
+
 		//Remove old widgets to prevent accumulation of duplicate widgets
 		removeAddedWidgets();
 
 		//log.debug("initializePlugin()");
 		widgetsModified = true;
+		refreshChatboxOpen();
 		resizeRenderViewport();
 		resizeByAspectRatio();
 		overlayManager.add(enabledOverlays);
@@ -402,47 +775,60 @@ public class FixedResizableHybridPlugin extends Plugin
 		fixInterfaceDimensions();
 		repositionMinimapWidgets();
 		createMinimapInvSprites();
-		if (config.isWideChatbox())
+		if (configSnapshot.isWideChatbox())
 		{
 			widenChat();
 			setupWideChatboxWidget();
 		}
+
+		if (jfr != null)
+		{
+			jfr.finish(client.getCanvasWidth(), client.getCanvasHeight(), originalStates.size(),
+				mutator.getWrites() - writes, mutator.getRevalidations() - revalidations,
+				revalidationQueue.getRequested() - queued);
+		}
 	}
 
 	private void resizeByAspectRatio()
 	{
 		//log.debug("resizeByAspectRatio()");
-		if (!config.aspectRatioResize())
+		if (!configSnapshot.isAspectRatioResize())
 		{
 			return;
 		}
 
+		final JfrEvents.AspectRatioResize jfr = JfrEvents.beginAspectRatioResize();
+		final Dimension currentDimensions = jfr != null ? client.getStretchedDimensions() : null;
 		Dimension newDimensions = calculateAspectRatioDimensions();
 		if (newDimensions != null)
 		{
 			resizeClient(newDimensions);
+			if (jfr != null)
+			{
+				jfr.finish(currentDimensions.width, currentDimensions.height, newDimensions.width, newDimensions.height);
+			}
 		}
 	}
 
 	private Dimension calculateAspectRatioDimensions()
 	{
 		//log.debug("calculateAspectRatioDimensions()");
-		Widget fullCanvas = client.getWidget(InterfaceID.ToplevelOsrsStretch.GAMEFRAME);
+		Widget fullCanvas = widgetCache.get(InterfaceID.ToplevelOsrsStretch.GAMEFRAME);
 		if (fullCanvas == null || fullCanvas.isHidden())
 		{
 			return null;
 		}
 
-		fullCanvas.revalidateScroll();
+		mutator.revalidateScroll(fullCanvas);
 
 		Dimension stretchedDimensions = client.getStretchedDimensions();
 		int currentWidth = stretchedDimensions.width;
 		int currentHeight = stretchedDimensions.height;
 
-		int aspectWidth = config.aspectRatioWidthResize();
-		int aspectHeight = config.aspectRatioHeightResize();
+		int aspectWidth = configSnapshot.getAspectRatioWidthResize();
+		int aspectHeight = configSnapshot.getAspectRatioHeightResize();
 
-		if (config.resizeBy() == ResizeBy.WIDTH)
+		if (configSnapshot.getResizeBy() == ResizeBy.WIDTH)
 		{
 			int newHeight = aspectHeight * currentWidth / aspectWidth;
 			return new Dimension(currentWidth, newHeight);
@@ -479,39 +865,23 @@ public class FixedResizableHybridPlugin extends Plugin
 	// 1. The widget exists
 	// 2. The widget has not already been saved
 	//    - prevents overwriting of the vanilla state when functions are called more than once
-	// The resetLast parameter is specified for the function resetWidgets() to allow for some saved widgets
-	// to be reset after the others, preventing issue where parent widgets needs to be revalidated again.
 	private void saveWidgetState(Widget widget)
 	{
-		saveWidgetState(widget, false);
-	}
-
-	private void saveWidgetState(Widget widget, boolean resetLast)
-	{
-		if (widget == null || getGameClientLayout() != 2)
+		if (widget == null || uiState.getGameClientLayout() != 2)
 		{
 			return;
 		}
-		int widgetId = widget.getId();
-		if (originalStates.containsKey(widgetId))
-		{
-			return;
-		}
-		WidgetState widgetState = new WidgetState(
-			widget.getSpriteId(),
-			widget.getOriginalX(),
-			widget.getOriginalY(),
-			widget.getOriginalWidth(),
-			widget.getOriginalHeight(),
-			widget.getXPositionMode(),
-			widget.getYPositionMode(),
-			widget.getWidthMode(),
-			widget.getHeightMode(),
-			widget.isHidden(),
-			widget.isSelfHidden(),
-			resetLast
-		);
-		originalStates.put(widgetId, widgetState);
+		originalStates.save(widget);
+	}
+
+	// Probes the widgets for the current game client layout mode and stores it in uiState.
+	// Everything else reads uiState.getGameClientLayout(); this only runs from the events that can change the layout
+	// (script 901, GameStateChanged and the initialization retry loop).
+	private int refreshGameClientLayout()
+	{
+		int gameClientLayout = probeGameClientLayout();
+		uiState.setGameClientLayout(gameClientLayout);
+		return gameClientLayout;
 	}
 
 	// Determines the current game client layout mode.
@@ -520,9 +890,9 @@ public class FixedResizableHybridPlugin extends Plugin
 	// 2 if the layout is Resizable - Classic mode.
 	// 3 if the layout is Resizable - Modern mode.
 	// -1 if the layout cannot be determined.
-	private int getGameClientLayout()
+	private int probeGameClientLayout()
 	{
-		//log.debug("getGameClientLayout()");
+		//log.debug("probeGameClientLayout()");
 		if (client.getGameState() == GameState.LOGGED_IN)
 		{
 			Widget classicResizableWidget = client.getWidget(InterfaceID.ToplevelOsrsStretch.CONTROL);
@@ -549,7 +919,7 @@ public class FixedResizableHybridPlugin extends Plugin
 	// This function is called after `onScriptPostFired()` for `scriptId == 901`.
 	// It offers two benefits over using `onGameStateChange()` or `client.isResizable()`:
 	// 1. Prevents premature initialization by ensuring widgets are fully drawn, as
-	//    `getGameClientLayout()` will return -1 if called too early.
+	//    `probeGameClientLayout()` will return -1 if called too early.
 	// 2. Provides a more specific response based on the interface layout, unlike the
 	//    more general `isResizable()` method.
 	//
@@ -558,8 +928,8 @@ public class FixedResizableHybridPlugin extends Plugin
 	// interference caused by switching layouts.
 	private void gameClientLayoutChanged()
 	{
-		//log.debug("gameClientLayoutChanged(), {}",getGameClientLayout());
-		if (getGameClientLayout() == 2)
+		//log.debug("gameClientLayoutChanged(), {}",uiState.getGameClientLayout());
+		if (refreshGameClientLayout() == 2)
 		{
 			queuePluginInitialization();
 		}
@@ -572,9 +942,30 @@ public class FixedResizableHybridPlugin extends Plugin
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged gameStateChanged)
 	{
-		if (gameStateChanged.getGameState() == GameState.LOGGED_IN)
+		final long timerStart = metrics.start(PluginMetrics.Timer.GAME_STATE_CHANGED);
+		try
 		{
-			gameClientLayoutChanged();
+			if (eventRecorder.isRecording())
+			{
+				eventRecorder.gameStateChanged(gameStateChanged.getGameState().getState());
+			}
+			mutationLog.setTrigger(WidgetMutationLog.GAME_STATE_CHANGED, gameStateChanged.getGameState().getState());
+			if (gameStateChanged.getGameState() == GameState.LOGGED_IN)
+			{
+				gameClientLayoutChanged();
+			}
+			else if (gameStateChanged.getGameState() != GameState.LOADING)
+			{
+				// Queued widgets are about to be unloaded
+				revalidationQueue.clear();
+				reinitScheduler.cancel();
+				widgetCache.invalidateAll();
+				uiState.setGameClientLayout(-1);
+			}
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.GAME_STATE_CHANGED, timerStart);
 		}
 	}
 
@@ -591,13 +982,13 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void fixWorldMapWikiStoreActAdvOrbs()
 	{
 		//log.debug("fixWorldMapWikiStoreActAdvOrbs()");
-		if (getGameClientLayout() == 2)
+		if (uiState.getGameClientLayout() == 2)
 		{
-			Widget worldMapOrb = client.getWidget(InterfaceID.Orbs.ORB_WORLDMAP);
-			Widget wikiBanner = client.getWidget(InterfaceID.Orbs.WIKI);
-			Widget storeOrb = client.getWidget(InterfaceID.Orbs.ORB_STORE);
-			Widget activityAdviserOrb = client.getWidget(InterfaceID.Orbs.ORB_CONTENTRECOM);
-			OrbsPosition positionMode = config.orbsPosition();
+			Widget worldMapOrb = widgetCache.get(InterfaceID.Orbs.ORB_WORLDMAP);
+			Widget wikiBanner = widgetCache.get(InterfaceID.Orbs.WIKI);
+			Widget storeOrb = widgetCache.get(InterfaceID.Orbs.ORB_STORE);
+			Widget activityAdviserOrb = widgetCache.get(InterfaceID.Orbs.ORB_CONTENTRECOM);
+			OrbsPosition positionMode = configSnapshot.getOrbsPosition();
 			if (worldMapOrb != null && worldMapOrb.getOriginalX() == 0)
 			{
 				saveWidgetState(worldMapOrb);
@@ -624,92 +1015,177 @@ public class FixedResizableHybridPlugin extends Plugin
 	// Used in volcanic mine overlay fix. There are likely other widgets this fixes too (minigame overlays)
 	private void fixIngameOverlayWidgets()
 	{
-		int maxDepth = 4;
-		if (!widgetsModified)
+		final long timerStart = metrics.start(PluginMetrics.Timer.FIX_INGAME_OVERLAY_WIDGETS);
+		try
+		{
+			int maxDepth = 4;
+			if (!widgetsModified)
+			{
+				return;
+			}
+			Widget clickWindow = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT_TRACKER_BACK);
+			Widget renderViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+			if (clickWindow != null && renderViewport != null)
+			{
+				mutator.setXPositionMode(clickWindow, 0);
+				mutator.setYPositionMode(clickWindow, 0);
+				mutator.setOriginalWidth(clickWindow, renderViewport.getWidth());
+				mutator.setOriginalHeight(clickWindow, renderViewport.getHeight());
+				mutator.revalidateScroll(clickWindow);
+				fixWidgetChildDimensions(clickWindow, maxDepth, 0); // Start recursive processing
+			}
+			ingameOverlayPassesExecuted++;
+			// Fingerprint is taken after the pass so the next frame compares against the state the pass left behind
+			lastIngameOverlayFingerprint = ingameOverlayFingerprint(maxDepth);
+			ingameOverlayFingerprintValid = true;
+		}
+		finally
 		{
+			metrics.stop(PluginMetrics.Timer.FIX_INGAME_OVERLAY_WIDGETS, timerStart);
+		}
+	}
+
+	// Runs fixIngameOverlayWidgets() from onBeforeRender() only if its inputs differ from the last applied pass.
+	// If the game rewrites one of the widgets (e.g. a minigame overlay resetting its width to 250), the fingerprint
+	// no longer matches and the full pass runs again.
+	private void fixIngameOverlayWidgetsIfChanged()
+	{
+		if (ingameOverlayFingerprintValid && ingameOverlayFingerprint(4) == lastIngameOverlayFingerprint)
+		{
+			ingameOverlayPassesSkipped++;
 			return;
 		}
-		Widget clickWindow = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT_TRACKER_BACK);
-		Widget renderViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
-		if (clickWindow != null && renderViewport != null)
+		fixIngameOverlayWidgets();
+	}
+
+	// Cheap hash of everything fixIngameOverlayWidgets() reads: viewport size, chat state, the click window's bounds
+	// and the ids/dimensions/size modes of its children down to maxDepth. Only getters, no revalidation.
+	private int ingameOverlayFingerprint(int maxDepth)
+	{
+		Widget clickWindow = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT_TRACKER_BACK);
+		Widget renderViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+		if (clickWindow == null || renderViewport == null)
+		{
+			return 0;
+		}
+		int hash = renderViewport.getWidth();
+		hash = 31 * hash + renderViewport.getHeight();
+		hash = 31 * hash + (uiState.isChatboxOpen() ? 1 : 0);
+		hash = 31 * hash + clickWindow.getOriginalWidth();
+		hash = 31 * hash + clickWindow.getOriginalHeight();
+		hash = 31 * hash + clickWindow.getXPositionMode();
+		hash = 31 * hash + clickWindow.getYPositionMode();
+		return fingerprintWidgetChildren(clickWindow, hash, maxDepth, 0);
+	}
+
+	private int fingerprintWidgetChildren(Widget widget, int hash, int maxDepth, int currentDepth)
+	{
+		if (maxDepth != 0 && currentDepth >= maxDepth)
 		{
-			clickWindow.setXPositionMode(0);
-			clickWindow.setYPositionMode(0);
-			clickWindow.setOriginalWidth(renderViewport.getWidth());
-			clickWindow.setOriginalHeight(renderViewport.getHeight());
-			clickWindow.revalidateScroll();
-			fixWidgetChildDimensions(clickWindow, maxDepth, 0); // Start recursive processing
+			return hash;
 		}
+		hash = fingerprintChildren(widget.getStaticChildren(), hash, maxDepth, currentDepth);
+		return fingerprintChildren(widget.getNestedChildren(), hash, maxDepth, currentDepth);
+	}
+
+	private int fingerprintChildren(Widget[] children, int hash, int maxDepth, int currentDepth)
+	{
+		if (children == null)
+		{
+			return 31 * hash;
+		}
+		hash = 31 * hash + children.length;
+		for (Widget child : children)
+		{
+			hash = 31 * hash + child.getId();
+			hash = 31 * hash + child.getOriginalWidth();
+			hash = 31 * hash + child.getOriginalHeight();
+			hash = 31 * hash + child.getWidthMode();
+			hash = 31 * hash + child.getHeightMode();
+			hash = fingerprintWidgetChildren(child, hash, maxDepth, currentDepth + 1);
+		}
+		return hash;
 	}
 
 	// Resets the bounding boxes of game interfaces (e.g. banks, deposit boxes, settings, etc).
 	private void fixInterfaceDimensions()
 	{
-		//log.debug("fixInterfaceDimensions()");
-		Widget renderViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+		final long timerStart = metrics.start(PluginMetrics.Timer.FIX_INTERFACE_DIMENSIONS);
+		try
+		{
+			//log.debug("fixInterfaceDimensions()");
+			// Viewport height is read below, so anything queued (e.g. by chatboxChanged/widenChat) has to be applied first
+			flushRevalidations();
+			Widget renderViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
 
-		fixIngameOverlayWidgets();
+			fixIngameOverlayWidgets();
 
-		Widget oldSchoolBox = client.getWidget(InterfaceID.ToplevelOsrsStretch.HUD_CONTAINER_FRONT);
-		if (oldSchoolBox != null && renderViewport != null)
-		{
-			Widget osbParent = oldSchoolBox.getParent();
-			int parentHeight = osbParent.getOriginalHeight();
-			int renderViewportHeight = renderViewport.getHeight();
-			if (osbParent.getXPositionMode() == 1 || osbParent.getYPositionMode() == 1)
+			Widget oldSchoolBox = widgetCache.get(InterfaceID.ToplevelOsrsStretch.HUD_CONTAINER_FRONT);
+			if (oldSchoolBox != null && renderViewport != null)
 			{
-				osbParent.setXPositionMode(0);
-				osbParent.setYPositionMode(0);
-				osbParent.setOriginalWidth(renderViewport.getWidth());
-				osbParent.revalidateScroll();
-			}
-			if (!config.isWideChatbox() && parentHeight != renderViewportHeight)
-			{
-				osbParent.setOriginalHeight(renderViewportHeight);
-				osbParent.revalidateScroll();
-			}
-			else if (config.isWideChatbox())
-			{
-				if (isChatboxOpen() && config.chatboxViewportCentering() && !transparentChatbox)
+				Widget osbParent = oldSchoolBox.getParent();
+				int parentHeight = osbParent.getOriginalHeight();
+				int renderViewportHeight = renderViewport.getHeight();
+				if (osbParent.getXPositionMode() == 1 || osbParent.getYPositionMode() == 1)
 				{
-					osbParent.setOriginalHeight(renderViewportHeight);
-					osbParent.revalidateScroll();
-					oldSchoolBox.setOriginalHeight(0);
-					oldSchoolBox.revalidateScroll();
+					mutator.setXPositionMode(osbParent, 0);
+					mutator.setYPositionMode(osbParent, 0);
+					mutator.setOriginalWidth(osbParent, renderViewport.getWidth());
+					revalidationQueue.markDirty(osbParent);
 				}
-				else
+				if (!configSnapshot.isWideChatbox() && parentHeight != renderViewportHeight)
 				{
-					osbParent.setOriginalHeight(renderViewportHeight + wideChatViewportOffset);
-					osbParent.revalidateScroll();
-					oldSchoolBox.setOriginalHeight(165);
-					oldSchoolBox.revalidateScroll();
+					mutator.setOriginalHeight(osbParent, renderViewportHeight);
+					revalidationQueue.markDirty(osbParent);
+				}
+				else if (configSnapshot.isWideChatbox())
+				{
+					if (uiState.isChatboxOpen() && configSnapshot.isChatboxViewportCentering() && !uiState.isTransparentChatbox())
+					{
+						mutator.setOriginalHeight(osbParent, renderViewportHeight);
+						revalidationQueue.markDirty(osbParent);
+						mutator.setOriginalHeight(oldSchoolBox, 0);
+						revalidationQueue.markDirty(oldSchoolBox);
+					}
+					else
+					{
+						mutator.setOriginalHeight(osbParent, renderViewportHeight + wideChatViewportOffset);
+						revalidationQueue.markDirty(osbParent);
+						mutator.setOriginalHeight(oldSchoolBox, 165);
+						revalidationQueue.markDirty(oldSchoolBox);
+					}
 				}
-			}
 
-			if (oldSchoolBox.getOriginalWidth() == 250)
-			{
-				oldSchoolBox.setOriginalWidth(0);
-				oldSchoolBox.revalidateScroll();
-			}
-			for (Widget child : oldSchoolBox.getStaticChildren())
-			{
-				child.revalidateScroll();
+				if (oldSchoolBox.getOriginalWidth() == 250)
+				{
+					mutator.setOriginalWidth(oldSchoolBox, 0);
+					revalidationQueue.markDirty(oldSchoolBox);
+				}
+				for (Widget child : oldSchoolBox.getStaticChildren())
+				{
+					revalidationQueue.markDirty(child);
+				}
 			}
 		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.FIX_INTERFACE_DIMENSIONS, timerStart);
+		}
 	}
 
 	private void fixWidgetBackground()
 	{
-		Widget widgetBackground = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAINMODAL_BACKGROUNDS);
-		Widget widgetInterface = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAINMODAL);
-		Widget mainViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
-		Widget oldSchoolBox = client.getWidget(InterfaceID.ToplevelOsrsStretch.HUD_CONTAINER_FRONT);
+		Widget widgetBackground = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAINMODAL_BACKGROUNDS);
+		Widget widgetInterface = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAINMODAL);
+		Widget mainViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+		Widget oldSchoolBox = widgetCache.get(InterfaceID.ToplevelOsrsStretch.HUD_CONTAINER_FRONT);
 
 		// Ensure all required widgets are present
 		if (widgetBackground == null || widgetInterface == null || mainViewport == null || oldSchoolBox == null)
 		{
 			return;
 		}
+		flushRevalidations();
 
 		Widget[] backgroundChildren = widgetBackground.getDynamicChildren();
 		if (backgroundChildren.length != 4)
@@ -722,31 +1198,31 @@ public class FixedResizableHybridPlugin extends Plugin
 		Widget leftBackground = backgroundChildren[2];
 		Widget rightBackground = backgroundChildren[3];
 
-		boolean chatIsOpen = isChatboxOpen();
+		boolean chatIsOpen = uiState.isChatboxOpen();
 
 		int topHeight = widgetInterface.getRelativeY();
 		int leftWidth = widgetInterface.getRelativeX();
 		int rightWidth = oldSchoolBox.getWidth() - widgetInterface.getWidth() - leftWidth;
 
 		// Set widths for the left and right background widgets
-		leftBackground.setOriginalWidth(leftWidth);
-		rightBackground.setOriginalWidth(rightWidth);
+		mutator.setOriginalWidth(leftBackground, leftWidth);
+		mutator.setOriginalWidth(rightBackground, rightWidth);
 
 		int bottomHeight;
 
-		if (config.isWideChatbox())
+		if (configSnapshot.isWideChatbox())
 		{
 			// Wide chatbox adjustments
 			if (chatIsOpen)
 			{
 				bottomHeight = oldSchoolBox.getHeight() - widgetInterface.getHeight() - topHeight;
-				bottomBackground.setOriginalY(oldSchoolBox.getParent().getHeight() - oldSchoolBox.getHeight());
+				mutator.setOriginalY(bottomBackground, oldSchoolBox.getParent().getHeight() - oldSchoolBox.getHeight());
 			}
 			else
 			{
 				// Chat closed case remains the same regardless of viewport centering
 				bottomHeight = oldSchoolBox.getParent().getHeight() - widgetInterface.getHeight() - topHeight - 23;
-				bottomBackground.setOriginalY(23);
+				mutator.setOriginalY(bottomBackground, 23);
 			}
 		}
 		else
@@ -755,13 +1231,13 @@ public class FixedResizableHybridPlugin extends Plugin
 		}
 
 		// Set final heights and Y-positions
-		topBackground.setOriginalHeight(topHeight);
-		bottomBackground.setOriginalHeight(bottomHeight);
-		leftBackground.setOriginalY(topHeight);
-		rightBackground.setOriginalY(topHeight);
+		mutator.setOriginalHeight(topBackground, topHeight);
+		mutator.setOriginalHeight(bottomBackground, bottomHeight);
+		mutator.setOriginalY(leftBackground, topHeight);
+		mutator.setOriginalY(rightBackground, topHeight);
 
 		// Revalidate the widget background to apply changes
-		widgetBackground.revalidateScroll();
+		mutator.revalidateScroll(widgetBackground);
 	}
 
 	private void fixStatsGuide()
@@ -770,14 +1246,14 @@ public class FixedResizableHybridPlugin extends Plugin
 		{
 			return;
 		}
-		Widget statsGuideWidget = client.getWidget(InterfaceID.SkillGuide.UNIVERSE);
+		Widget statsGuideWidget = widgetCache.get(InterfaceID.SkillGuide.UNIVERSE);
 		if (statsGuideWidget == null)
 		{
 			return;
 		}
-		statsGuideWidget.setXPositionMode(WidgetPositionMode.ABSOLUTE_CENTER);
-		statsGuideWidget.setOriginalX(0);
-		statsGuideWidget.revalidateScroll();
+		mutator.setXPositionMode(statsGuideWidget, WidgetPositionMode.ABSOLUTE_CENTER);
+		mutator.setOriginalX(statsGuideWidget, 0);
+		mutator.revalidateScroll(statsGuideWidget);
 	}
 
 	private void fixWidgetChildDimensions(Widget widget, int maxDepth, int currentDepth)
@@ -802,17 +1278,17 @@ public class FixedResizableHybridPlugin extends Plugin
 		{
 			if ((child.getOriginalWidth() >= 248 && child.getOriginalWidth() <= 254) && child.getWidthMode() == 1)
 			{
-				child.setOriginalWidth(0);
+				mutator.setOriginalWidth(child, 0);
 			}
 			if (child.getOriginalHeight() >= 164 && child.getOriginalHeight() <= 172 && child.getHeightMode() == 1
-				&& config.isWideChatbox() && config.chatboxViewportCentering()
-				&& isChatboxOpen())
+				&& configSnapshot.isWideChatbox() && configSnapshot.isChatboxViewportCentering()
+				&& uiState.isChatboxOpen())
 			{
-				child.setOriginalHeight(0);
+				mutator.setOriginalHeight(child, 0);
 			}
 			if (staticChildren)
 			{
-				child.revalidateScroll();
+				mutator.revalidateScroll(child);
 			}
 			// Recurse into both static and nested children
 			fixWidgetChildDimensions(child, maxDepth, currentDepth + 1);
@@ -825,117 +1301,93 @@ public class FixedResizableHybridPlugin extends Plugin
 		if (widgetsModified)
 		{
 			//log.debug("fixInvBackground()");
-			Widget invBackground = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_BACKGROUND);
+			Widget invBackground = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_BACKGROUND);
 			if (invBackground != null && invBackground.getSpriteId() == 897)
 			{
 				saveWidgetState(invBackground);
-				invBackground.setSpriteId(1031);
+				mutator.setSpriteId(invBackground, 1031);
 			}
 		}
 	}
 
 	// Resets all modified widgets. See removeAddedWidgets() for how all non-vanilla and plugin-created widgets are reset.
 	// Runs whenever the user logs out, hops worlds, or changes the game client layout to something other than classic-resizable
-	// There are a few widgets which need to be revalidated last to make sure everything resets properly, which is done last.
+	// Everything is restored and revalidated within this single client thread callback, so there's no partially reset frame.
 	private void resetWidgets()
 	{
 		//log.debug("resetWidgets()");
 		clientThread.invoke(() -> {
+			final long start = System.nanoTime();
+			mutationLog.setTrigger(WidgetMutationLog.RESET, 0);
+			final JfrEvents.Reset jfr = JfrEvents.beginReset();
+			final long writes = mutator.getWrites();
+			final long revalidations = mutator.getRevalidations();
 			removeAddedWidgets();
 			resetRenderViewport();
-			resetOriginalStates(); // sets widgetModified to false too
+			int restored = resetOriginalStates(); // sets widgetModified to false too
+			// One revalidation per topmost restored widget (plus anything still queued), parents before children
+			flushRevalidations();
 			restoreSprites();
+			log.debug("resetWidgets(): restored {} widgets in {}µs", restored, (System.nanoTime() - start) / 1000);
+			if (jfr != null)
+			{
+				jfr.finish(restored, mutator.getWrites() - writes, mutator.getRevalidations() - revalidations);
+			}
 		});
 	}
 
-	private void resetOriginalStates()
+	// Restores every saved widget in tree depth order (parents before children) and queues them for revalidation.
+	// The revalidation queue collapses them down to the topmost restored widgets, so parents like the inventory and
+	// minimap containers are revalidated once, after all of their children have their vanilla values back.
+	// Returns the number of widgets restored.
+	private int resetOriginalStates()
 	{
 		//log.debug("resetOriginalStates()");
-		List<Map.Entry<Integer, WidgetState>> resetLastEntries = new ArrayList<>();
-
-		// Iterate through the originalStates map
-		for (Map.Entry<Integer, WidgetState> entry : originalStates.entrySet())
+		final int count = originalStates.size();
+		if (resetOrder.length < count)
 		{
-			int widgetId = entry.getKey();
-			WidgetState state = entry.getValue();
+			resetOrder = new int[count];
+			resetDepths = new int[count];
+		}
 
-			// Skip resetLast widgets for now, and adds to the list to reset last.
-			if (state.isResetLast())
+		// Insertion sort of the saved slots by depth, skipping widgets that no longer exist
+		int ordered = 0;
+		for (int slot = 0; slot < count; slot++)
+		{
+			Widget widget = widgetCache.get(originalStates.getWidgetId(slot));
+			if (widget == null)
 			{
-				resetLastEntries.add(entry);
 				continue;
 			}
-
-			// Retrieves the widget and resets it
-			Widget widget = client.getWidget(widgetId);
-			if (widget != null)
+			int depth = 0;
+			for (Widget parent = widget.getParent(); parent != null; parent = parent.getParent())
 			{
-				widget.setSpriteId(state.getSpriteId());
-				widget.setOriginalX(state.getOriginalX());
-				widget.setOriginalY(state.getOriginalY());
-				widget.setOriginalWidth(state.getOriginalWidth());
-				widget.setOriginalHeight(state.getOriginalHeight());
-				widget.setXPositionMode(state.getXPositionMode());
-				widget.setYPositionMode(state.getYPositionMode());
-				widget.setWidthMode(state.getWidthMode());
-				widget.setHeightMode(state.getHeightMode());
-				widget.setHidden(state.isHidden() || state.isSelfHidden());
+				depth++;
 			}
-		}
-
-		// Revalidates reset widgets
-		clientThread.invoke(() -> {
-			for (Map.Entry<Integer, WidgetState> entry : originalStates.entrySet())
+			int i = ordered++;
+			while (i > 0 && resetDepths[i - 1] > depth)
 			{
-				if (!entry.getValue().isResetLast())
-				{
-					Widget widget = client.getWidget(entry.getKey());
-					if (widget != null)
-					{
-						widget.revalidateScroll();
-					}
-				}
+				resetOrder[i] = resetOrder[i - 1];
+				resetDepths[i] = resetDepths[i - 1];
+				i--;
 			}
-		});
+			resetOrder[i] = slot;
+			resetDepths[i] = depth;
+		}
 
-		// Process widgets with isResetLast() set to true
-		for (Map.Entry<Integer, WidgetState> entry : resetLastEntries)
+		for (int i = 0; i < ordered; i++)
 		{
-			int widgetId = entry.getKey();
-			WidgetState state = entry.getValue();
-
-			// Retrieve the widget and reset it
-			Widget widget = client.getWidget(widgetId);
-			if (widget != null)
-			{
-				widget.setSpriteId(state.getSpriteId());
-				widget.setOriginalX(state.getOriginalX());
-				widget.setOriginalY(state.getOriginalY());
-				widget.setOriginalWidth(state.getOriginalWidth());
-				widget.setOriginalHeight(state.getOriginalHeight());
-				widget.setXPositionMode(state.getXPositionMode());
-				widget.setYPositionMode(state.getYPositionMode());
-				widget.setWidthMode(state.getWidthMode());
-				widget.setHeightMode(state.getHeightMode());
-				widget.setHidden(state.isHidden());
-			}
+			int slot = resetOrder[i];
+			Widget widget = widgetCache.get(originalStates.getWidgetId(slot));
+			originalStates.restore(slot, widget);
+			revalidationQueue.markDirty(widget);
 		}
 
-		// Revalidate widgets with isResetLast == true
-		clientThread.invoke(() -> {
-			for (Map.Entry<Integer, WidgetState> entry : resetLastEntries)
-			{
-				Widget widget = client.getWidget(entry.getKey());
-				if (widget != null)
-				{
-					widget.revalidateScroll();
-				}
-			}
-		});
-
-		// Clear the originalStates map after resetting, and sets the boolean to reflect that
+		// Clear the saved states after resetting, and sets the boolean to reflect that
 		originalStates.clear();
 		widgetsModified = false;
+		ingameOverlayFingerprintValid = false;
+		return ordered;
 	}
 
 	// Removes all widgets that plugin created (sprites surrounding the minimap/inventory)
@@ -943,14 +1395,14 @@ public class FixedResizableHybridPlugin extends Plugin
 	{
 		//log.debug("removeAddedWidgets() (inv+minimap)");
 		//Deletes added minimap sprites + bottom border sprite
-		Widget minimapDrawArea = client.getWidget(InterfaceID.ToplevelOsrsStretch.MINIMAP);
+		Widget minimapDrawArea = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MINIMAP);
 		if (minimapDrawArea != null && minimapDrawArea.getParent() != null)
 		{
 			minimapDrawArea.getParent().deleteAllChildren();
 		}
 
 		// Deletes added inventory sprites
-		Widget invDynamicParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
+		Widget invDynamicParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
 		if (invDynamicParent != null)
 		{
 			invDynamicParent.deleteAllChildren();
@@ -961,7 +1413,7 @@ public class FixedResizableHybridPlugin extends Plugin
 	// Sets a widget's coordinates, overloaded to be able to accept both ComponentIDs or the widget directly
 	private void setWidgetCoordinates(int componentId, int newX, int newY)
 	{
-		setWidgetCoordinates(client.getWidget(componentId), newX, newY);
+		setWidgetCoordinates(widgetCache.get(componentId), newX, newY);
 	}
 
 	private void setWidgetCoordinates(Widget widget, int newX, int newY)
@@ -969,9 +1421,9 @@ public class FixedResizableHybridPlugin extends Plugin
 		if (widget != null)
 		{
 			saveWidgetState(widget);
-			widget.setOriginalX(newX);
-			widget.setOriginalY(newY);
-			widget.revalidateScroll();
+			mutator.setOriginalX(widget, newX);
+			mutator.setOriginalY(widget, newY);
+			revalidationQueue.markDirty(widget);
 		}
 	}
 
@@ -989,15 +1441,15 @@ public class FixedResizableHybridPlugin extends Plugin
 		if (widget != null)
 		{
 			saveWidgetState(widget);
-			widget.setOriginalX(newX);
-			widget.setOriginalY(newY);
-			widget.setOriginalWidth(newOriginalWidth);
-			widget.setOriginalHeight(newOriginalHeight);
-			widget.setXPositionMode(newXPositionMode);
-			widget.setYPositionMode(newYPositionMode);
-			widget.setWidthMode(newWidthMode);
-			widget.setHeightMode(newHeightMode);
-			widget.revalidateScroll();
+			mutator.setOriginalX(widget, newX);
+			mutator.setOriginalY(widget, newY);
+			mutator.setOriginalWidth(widget, newOriginalWidth);
+			mutator.setOriginalHeight(widget, newOriginalHeight);
+			mutator.setXPositionMode(widget, newXPositionMode);
+			mutator.setYPositionMode(widget, newYPositionMode);
+			mutator.setWidthMode(widget, newWidthMode);
+			mutator.setHeightMode(widget, newHeightMode);
+			revalidationQueue.markDirty(widget);
 		}
 	}
 
@@ -1005,85 +1457,100 @@ public class FixedResizableHybridPlugin extends Plugin
 	//     resetWidgets() later. Could definitely be cleaned up.
 	private void repositionMinimapWidgets()
 	{
-		final Widget mapContainer  = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAP_CONTAINER);
-		final Widget maskSprite    = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC9);
-		final Widget orbsParent    = client.getWidget(InterfaceID.ToplevelOsrsStretch.ORBS);
-		final Widget orbsInterface = client.getWidget(InterfaceID.Orbs.UNIVERSE);
+		final long timerStart = metrics.start(PluginMetrics.Timer.REPOSITION_MINIMAP_WIDGETS);
+		try
+		{
+			final Widget mapContainer  = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_CONTAINER);
+			final Widget maskSprite    = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC9);
+			final Widget orbsParent    = widgetCache.get(InterfaceID.ToplevelOsrsStretch.ORBS);
+			final Widget orbsInterface = widgetCache.get(InterfaceID.Orbs.UNIVERSE);
 
-		if (getGameClientLayout() != 2 || mapContainer == null || maskSprite == null || orbsParent == null || orbsInterface == null)
-			return;
+			if (uiState.getGameClientLayout() != 2 || mapContainer == null || maskSprite == null || orbsParent == null || orbsInterface == null)
+				return;
 
-		// geometry
-		final int PANEL_W   = 249;
-		final int MINIMAP_H = 207;
-		final int ORBS_H    = 197;
-
-		saveWidgetState(mapContainer, true);
-		saveWidgetState(maskSprite);
-		saveWidgetState(orbsInterface);
-		saveWidgetState(orbsParent);
-
-		if (!maskSprite.isHidden()) maskSprite.setHidden(true);
-
-		// Only write when changed (reduces layout churn)
-		boolean changed = false;
-		if (mapContainer.getOriginalWidth()  != PANEL_W)   { mapContainer.setOriginalWidth(PANEL_W);   changed = true; }
-		if (mapContainer.getOriginalHeight() != MINIMAP_H) { mapContainer.setOriginalHeight(MINIMAP_H); changed = true; }
-		if (changed) mapContainer.revalidateScroll();
-
-		changed = false;
-		if (orbsParent.getOriginalWidth()  != PANEL_W) { orbsParent.setOriginalWidth(PANEL_W);  changed = true; }
-		if (orbsParent.getOriginalHeight() != ORBS_H)  { orbsParent.setOriginalHeight(ORBS_H); changed = true; }
-		if (changed) orbsParent.revalidateScroll();
-
-		changed = false;
-		if (orbsInterface.getWidthMode()  != WidgetSizeMode.ABSOLUTE) { orbsInterface.setWidthMode(WidgetSizeMode.ABSOLUTE);  changed = true; }
-		if (orbsInterface.getHeightMode() != WidgetSizeMode.ABSOLUTE) { orbsInterface.setHeightMode(WidgetSizeMode.ABSOLUTE); changed = true; }
-		if (orbsInterface.getOriginalWidth()  != PANEL_W) { orbsInterface.setOriginalWidth(PANEL_W);  changed = true; }
-		if (orbsInterface.getOriginalHeight() != ORBS_H)  { orbsInterface.setOriginalHeight(ORBS_H); changed = true; }
-		if (changed) orbsInterface.revalidateScroll();
-
-		// Right-anchored elements to pin at absolute coordinates
-		final int[][] minimapPlacements = {
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_0,        44,   5 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_1,        44,  45 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_2,        44, 101 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_3,        44, 126 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_4,        44, 141 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_5,        44, 156 },
-			{ InterfaceID.ToplevelOsrsStretch.MINIMAP,              50,   9 },
-			{ InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC9, 44,   1 }
-		};
+			// geometry
+			final int PANEL_W   = 249;
+			final int MINIMAP_H = 207;
+			final int ORBS_H    = 197;
+
+			saveWidgetState(mapContainer);
+			saveWidgetState(maskSprite);
+			saveWidgetState(orbsInterface);
+			saveWidgetState(orbsParent);
+
+			if (!maskSprite.isHidden()) mutator.setHidden(maskSprite, true);
+
+			// Only write when changed (reduces layout churn)
+			boolean changed = false;
+			if (mapContainer.getOriginalWidth()  != PANEL_W)   { mutator.setOriginalWidth(mapContainer, PANEL_W);   changed = true; }
+			if (mapContainer.getOriginalHeight() != MINIMAP_H) { mutator.setOriginalHeight(mapContainer, MINIMAP_H); changed = true; }
+			if (changed) mutator.revalidateScroll(mapContainer);
+
+			changed = false;
+			if (orbsParent.getOriginalWidth()  != PANEL_W) { mutator.setOriginalWidth(orbsParent, PANEL_W);  changed = true; }
+			if (orbsParent.getOriginalHeight() != ORBS_H)  { mutator.setOriginalHeight(orbsParent, ORBS_H); changed = true; }
+			if (changed) mutator.revalidateScroll(orbsParent);
+
+			changed = false;
+			if (orbsInterface.getWidthMode()  != WidgetSizeMode.ABSOLUTE) { mutator.setWidthMode(orbsInterface, WidgetSizeMode.ABSOLUTE);  changed = true; }
+			if (orbsInterface.getHeightMode() != WidgetSizeMode.ABSOLUTE) { mutator.setHeightMode(orbsInterface, WidgetSizeMode.ABSOLUTE); changed = true; }
+			if (orbsInterface.getOriginalWidth()  != PANEL_W) { mutator.setOriginalWidth(orbsInterface, PANEL_W);  changed = true; }
+			if (orbsInterface.getOriginalHeight() != ORBS_H)  { mutator.setOriginalHeight(orbsInterface, ORBS_H); changed = true; }
+			if (changed) mutator.revalidateScroll(orbsInterface);
+
+			// Right-anchored elements to pin at absolute coordinates
+			final int[][] minimapPlacements = {
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_0,        44,   5 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_1,        44,  45 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_2,        44, 101 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_3,        44, 126 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_4,        44, 141 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_NOCLICK_5,        44, 156 },
+				{ InterfaceID.ToplevelOsrsStretch.MINIMAP,              50,   9 },
+				{ InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC9, 44,   1 }
+			};
+
+			for (int[] p : minimapPlacements)
+			{
+				Widget w = widgetCache.get(p[0]);
+				if (w == null) continue;
+				if (w.getXPositionMode() == WidgetPositionMode.ABSOLUTE_RIGHT) {
+					saveWidgetState(w);
+					mutator.setXPositionMode(w, WidgetPositionMode.ABSOLUTE_LEFT);
+					setWidgetCoordinates(w, p[1], p[2]); // this queues the revalidation
+				}
+			}
+
+			// Orbs cluster
+			positionOrbs();
+			setWidgetCoordinates(InterfaceID.Orbs.XP_DROPS,   0, 11);
+			setWidgetCoordinates(InterfaceID.Orbs.ORB_HEALTH, 0, 31);
+			setWidgetCoordinates(InterfaceID.Orbs.ORB_PRAYER, 0, 65);
+
+			// Compass
+			setWidgetCoordinates(widgetCache.get(InterfaceID.ToplevelOsrsStretch.COMPASSCLICK),         26, 1);
+			setWidgetCoordinates(widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC6), 28, 3);
 
-		for (int[] p : minimapPlacements)
+			fixWorldMapWikiStoreActAdvOrbs();
+			mutator.revalidateScroll(mapContainer);
+		}
+		finally
 		{
-			Widget w = client.getWidget(p[0]);
-			if (w == null) continue;
-			if (w.getXPositionMode() == WidgetPositionMode.ABSOLUTE_RIGHT) {
-				saveWidgetState(w, true);
-				w.setXPositionMode(WidgetPositionMode.ABSOLUTE_LEFT);
-				setWidgetCoordinates(w, p[1], p[2]); // this revalidates
-			}
+			metrics.stop(PluginMetrics.Timer.REPOSITION_MINIMAP_WIDGETS, timerStart);
 		}
+	}
 
-		// Orbs cluster
-		if (config.orbsPosition() == OrbsPosition.FIXED_MODE) {
+	// Places the run energy and special attack orbs according to the "Orb Positioning" setting.
+	// Also run on its own when only that setting changes.
+	private void positionOrbs()
+	{
+		if (configSnapshot.getOrbsPosition() == OrbsPosition.FIXED_MODE) {
 			setWidgetCoordinates(InterfaceID.Orbs.ORB_RUNENERGY, 10, 97);
 			setWidgetCoordinates(InterfaceID.Orbs.ORB_SPECENERGY, 32, 122);
-		} else if (config.orbsPosition() == OrbsPosition.MORE_CLEARANCE) {
+		} else if (configSnapshot.getOrbsPosition() == OrbsPosition.MORE_CLEARANCE) {
 			setWidgetCoordinates(InterfaceID.Orbs.ORB_RUNENERGY,  2,  97);
 			setWidgetCoordinates(InterfaceID.Orbs.ORB_SPECENERGY, 23, 124);
 		}
-		setWidgetCoordinates(InterfaceID.Orbs.XP_DROPS,   0, 11);
-		setWidgetCoordinates(InterfaceID.Orbs.ORB_HEALTH, 0, 31);
-		setWidgetCoordinates(InterfaceID.Orbs.ORB_PRAYER, 0, 65);
-
-		// Compass
-		setWidgetCoordinates(client.getWidget(InterfaceID.ToplevelOsrsStretch.COMPASSCLICK),         26, 1);
-		setWidgetCoordinates(client.getWidget(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP_GRAPHIC6), 28, 3);
-
-		fixWorldMapWikiStoreActAdvOrbs();
-		mapContainer.revalidateScroll();
 	}
 
 	private void checkMinimapSprites()
@@ -1093,7 +1560,7 @@ public class FixedResizableHybridPlugin extends Plugin
 			return;
 		}
 
-		Widget minimapSpriteContainer = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
+		Widget minimapSpriteContainer = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
 		if (minimapSpriteContainer == null)
 		{
 			//log.debug("checkMinimapSprites(): FRH minimap sprite container null");
@@ -1109,8 +1576,8 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void createMinimapInvSprites()
 	{
 		//log.debug("createMinimapInvSprites()");
-		final Widget minimapParent   = client.getWidget(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
-		final Widget inventoryParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
+		final Widget minimapParent   = widgetCache.get(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
+		final Widget inventoryParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
 		if (minimapParent == null || inventoryParent == null) return;
 
 		final int minimapId   = minimapParent.getId();
@@ -1140,23 +1607,23 @@ public class FixedResizableHybridPlugin extends Plugin
 
 	private void createNewSpriteWidget(int[] cfg)
 	{
-		Widget parent = client.getWidget(cfg[C_PARENT_ID]);
+		Widget parent = widgetCache.get(cfg[C_PARENT_ID]);
 		if (parent == null) return;
 
 		Widget w = parent.createChild(cfg[C_TYPE]);
-		w.setSpriteId(cfg[C_SPRITE]);
-		w.setOriginalX(cfg[C_X]);
-		w.setOriginalY(cfg[C_Y]);
-		w.setOriginalWidth(cfg[C_W]);
-		w.setOriginalHeight(cfg[C_H]);
-		w.setXPositionMode(cfg[C_XMODE]);
-		w.setYPositionMode(cfg[C_YMODE]);
-		w.setWidthMode(cfg[C_WMODE]);
-		w.setHeightMode(cfg[C_HMODE]);
-		w.setNoClickThrough(cfg[C_NOCLICK] != 0);
-		w.setSpriteTiling(cfg[C_TILE] != 0);
-
-		parent.revalidateScroll();
+		mutator.setSpriteId(w, cfg[C_SPRITE]);
+		mutator.setOriginalX(w, cfg[C_X]);
+		mutator.setOriginalY(w, cfg[C_Y]);
+		mutator.setOriginalWidth(w, cfg[C_W]);
+		mutator.setOriginalHeight(w, cfg[C_H]);
+		mutator.setXPositionMode(w, cfg[C_XMODE]);
+		mutator.setYPositionMode(w, cfg[C_YMODE]);
+		mutator.setWidthMode(w, cfg[C_WMODE]);
+		mutator.setHeightMode(w, cfg[C_HMODE]);
+		mutator.setNoClickThrough(w, cfg[C_NOCLICK] != 0);
+		mutator.setSpriteTiling(w, cfg[C_TILE] != 0);
+
+		mutator.revalidateScroll(parent);
 	}
 
 
@@ -1166,85 +1633,85 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void inventoryWidgetBoundsFix()
 	{
 		//log.debug("inventoryWidgetBoundsFix()");
-		Widget invParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
+		Widget invParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU);
 		if (invParent != null)
 		{
-			saveWidgetState(invParent, true);
-			invParent.setOriginalWidth(249);
-			invParent.setOriginalHeight(336);
-			invParent.revalidate();
+			saveWidgetState(invParent);
+			mutator.setOriginalWidth(invParent, 249);
+			mutator.setOriginalHeight(invParent, 336);
+			revalidationQueue.markDirty(invParent);
 		}
 
-		Widget invBackground = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_BACKGROUND);
+		Widget invBackground = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_BACKGROUND);
 		if (invBackground != null)
 		{
 			saveWidgetState(invBackground);
-			invBackground.setOriginalX(28);
-			invBackground.setOriginalY(37);
-			invBackground.setOriginalWidth(190);
-			invBackground.setOriginalHeight(261);
-			invBackground.setSpriteId(1031);
-			invBackground.revalidate();
+			mutator.setOriginalX(invBackground, 28);
+			mutator.setOriginalY(invBackground, 37);
+			mutator.setOriginalWidth(invBackground, 190);
+			mutator.setOriginalHeight(invBackground, 261);
+			mutator.setSpriteId(invBackground, 1031);
+			revalidationQueue.markDirty(invBackground);
 		}
 
-		Widget invLeftColumn = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC1);
+		Widget invLeftColumn = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC1);
 		if (invLeftColumn != null)
 		{
 			saveWidgetState(invLeftColumn);
-			invLeftColumn.setHidden(true);
-			invLeftColumn.revalidate();
+			mutator.setHidden(invLeftColumn, true);
+			revalidationQueue.markDirty(invLeftColumn);
 		}
-		Widget invRightColumn = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC2);
+		Widget invRightColumn = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC2);
 		if (invRightColumn != null)
 		{
 			saveWidgetState(invRightColumn);
-			invRightColumn.setHidden(true);
-			invRightColumn.revalidate();
+			mutator.setHidden(invRightColumn, true);
+			revalidationQueue.markDirty(invRightColumn);
 		}
 
-		Widget invBottomBarSprite = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC3);
+		Widget invBottomBarSprite = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC3);
 		if (invBottomBarSprite != null)
 		{
 			saveWidgetState(invBottomBarSprite);
-			invBottomBarSprite.setOriginalWidth(246);
-			invBottomBarSprite.setOriginalHeight(37);
-			invBottomBarSprite.setSpriteId(1032);
-			invBottomBarSprite.revalidate();
+			mutator.setOriginalWidth(invBottomBarSprite, 246);
+			mutator.setOriginalHeight(invBottomBarSprite, 37);
+			mutator.setSpriteId(invBottomBarSprite, 1032);
+			revalidationQueue.markDirty(invBottomBarSprite);
 		}
 
-		Widget invBottomTabsParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_BOTTOM);
+		Widget invBottomTabsParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_BOTTOM);
 		if (invBottomTabsParent != null)
 		{
-			saveWidgetState(invBottomTabsParent, true);
-			invBottomTabsParent.setOriginalX(2);
-			invBottomTabsParent.revalidate();
+			saveWidgetState(invBottomTabsParent);
+			mutator.setOriginalX(invBottomTabsParent, 2);
+			revalidationQueue.markDirty(invBottomTabsParent);
 		}
 
-		Widget invTopBarSprite = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC5);
+		Widget invTopBarSprite = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_MENU_GRAPHIC5);
 		if (invTopBarSprite != null)
 		{
 			saveWidgetState(invTopBarSprite);
-			invTopBarSprite.setOriginalY(298);
-			invTopBarSprite.setOriginalWidth(249);
-			invTopBarSprite.setOriginalHeight(38);
-			invTopBarSprite.setSpriteId(1036);
-			invTopBarSprite.revalidate();
+			mutator.setOriginalY(invTopBarSprite, 298);
+			mutator.setOriginalWidth(invTopBarSprite, 249);
+			mutator.setOriginalHeight(invTopBarSprite, 38);
+			mutator.setSpriteId(invTopBarSprite, 1036);
+			revalidationQueue.markDirty(invTopBarSprite);
 		}
 
-		Widget invTopTabsParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_TOP);
+		Widget invTopTabsParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_TOP);
 		if (invTopTabsParent != null)
 		{
-			saveWidgetState(invTopTabsParent, true);
-			invTopTabsParent.setOriginalX(2);
-			invTopTabsParent.revalidate();
+			saveWidgetState(invTopTabsParent);
+			mutator.setOriginalX(invTopTabsParent, 2);
+			revalidationQueue.markDirty(invTopTabsParent);
 		}
 
-		Widget invViewportInterfaceController = client.getWidget(InterfaceID.ToplevelOsrsStretch.SIDE_CONTAINER);
+		Widget invViewportInterfaceController = widgetCache.get(InterfaceID.ToplevelOsrsStretch.SIDE_CONTAINER);
 		if (invViewportInterfaceController != null)
 		{
 			saveWidgetState(invViewportInterfaceController);
-			invViewportInterfaceController.setOriginalX(26 + 2);
-			invViewportInterfaceController.revalidate();
+			mutator.setOriginalX(invViewportInterfaceController, 26 + 2);
+			revalidationQueue.markDirty(invViewportInterfaceController);
 		}
 	}
 
@@ -1253,18 +1720,18 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void resizeRenderViewport()
 	{
 		//log.debug("resizeRenderViewport()");
-		Widget mainViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+		Widget mainViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
 		if (mainViewport != null)
 		{
 			// Width is set to the width of the inventory and minimap widgets because widthMode = 1 (subtracts
 			//     that value from the parent widget's dimensions).
-			mainViewport.setOriginalWidth(249);
-			if (config.isWideChatbox())
+			mutator.setOriginalWidth(mainViewport, 249);
+			if (configSnapshot.isWideChatbox())
 			{
 				chatboxChanged();
 			}
 			// Configures height of viewport if wide chatbox is enabled
-			mainViewport.revalidateScroll();
+			mutator.revalidateScroll(mainViewport);
 		}
 	}
 
@@ -1273,141 +1740,194 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void resetRenderViewport()
 	{
 		//log.debug("resetRenderViewport()");
-		Widget mainViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+		Widget mainViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
 		if (mainViewport != null)
 		{
-			clientThread.invoke(() -> {
-				mainViewport.setOriginalWidth(0);
-				mainViewport.setOriginalHeight(0);
-				mainViewport.setYPositionMode(1);
-				mainViewport.revalidateScroll();
-			});
+			mutator.setOriginalWidth(mainViewport, 0);
+			mutator.setOriginalHeight(mainViewport, 0);
+			mutator.setYPositionMode(mainViewport, 1);
+			revalidationQueue.markDirty(mainViewport);
 		}
 	}
 
 	//Runs after onPostScript when opening or closing of the chatbox. Handles recentering the viewport for Wide chat mode only.
 	private void chatboxChanged()
 	{
-		if (!config.isWideChatbox() || getGameClientLayout() != 2)
-		{
-			return;
-		}
-
-		Widget mainViewport = client.getWidget(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
-		Widget chatboxFrame = client.getWidget(InterfaceID.Chatbox.CHATAREA);
-		Widget chatboxParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);
-		if (mainViewport == null || chatboxFrame == null || chatboxParent == null)
+		final long timerStart = metrics.start(PluginMetrics.Timer.CHATBOX_CHANGED);
+		try
 		{
-			return;
-		}
-
-		int baseHeight = (isChatboxOpen() && config.chatboxViewportCentering()) ? 165 : wideChatViewportOffset;
-		mainViewport.setOriginalHeight(baseHeight + chatboxParent.getOriginalY());
-		mainViewport.setYPositionMode(0);
-		mainViewport.revalidateScroll();
+			if (!configSnapshot.isWideChatbox() || uiState.getGameClientLayout() != 2)
+			{
+				return;
+			}
 
-		Widget chatboxBackgroundParent = client.getWidget(InterfaceID.Chatbox.CHAT_BACKGROUND);
-		if (chatboxBackgroundParent != null)
-		{
-			int childrenCount = chatboxBackgroundParent.getDynamicChildren().length;
-			if (childrenCount == 1)
+			Widget mainViewport = widgetCache.get(InterfaceID.ToplevelOsrsStretch.VIEWPORT);
+			Widget chatboxFrame = widgetCache.get(InterfaceID.Chatbox.CHATAREA);
+			Widget chatboxParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);
+			if (mainViewport == null || chatboxFrame == null || chatboxParent == null)
 			{
-				setupWideChatboxWidget();
+				return;
 			}
-			else if (childrenCount == 4)
+
+			int baseHeight = (uiState.isChatboxOpen() && configSnapshot.isChatboxViewportCentering()) ? 165 : wideChatViewportOffset;
+			mutator.setOriginalHeight(mainViewport, baseHeight + chatboxParent.getOriginalY());
+			mutator.setYPositionMode(mainViewport, 0);
+			mutator.revalidateScroll(mainViewport);
+
+			Widget chatboxBackgroundParent = widgetCache.get(InterfaceID.Chatbox.CHAT_BACKGROUND);
+			if (chatboxBackgroundParent != null)
 			{
-				Widget middleChatBackground = chatboxBackgroundParent.getDynamicChildren()[1];
-				int newWidth = (int) Math.ceil((579.0 / 519.0) * (client.getCanvasWidth() - 249) - 60);
-				middleChatBackground.setOriginalWidth(newWidth);
+				int childrenCount = chatboxBackgroundParent.getDynamicChildren().length;
+				if (childrenCount == 1)
+				{
+					setupWideChatboxWidget();
+				}
+				else if (childrenCount == 4)
+				{
+					Widget middleChatBackground = chatboxBackgroundParent.getDynamicChildren()[1];
+					mutator.setOriginalWidth(middleChatBackground, middleChatBackgroundWidth());
+				}
 			}
-		}
 
-		fixInterfaceDimensions();
+			fixInterfaceDimensions();
+		}
+		finally
+		{
+			metrics.stop(PluginMetrics.Timer.CHATBOX_CHANGED, timerStart);
+		}
 	}
 
 
-	private void widenChat()
+	private int middleChatBackgroundWidth()
 	{
-		//log.debug("Started widenChat() -> positionChatboxButtons -> *logChatWidgets()*");
-		if (!config.isWideChatbox() || !widgetsModified || getGameClientLayout() != 2)
-		{
-			return;
-		}
-		Widget canvas = client.getWidget(InterfaceID.ToplevelOsrsStretch.CONTROL);
+		return (int) Math.ceil((579.0 / 519.0) * (client.getCanvasWidth() - 249) - 60);
+	}
+
+	// Cheap stand-in for chatboxChanged() + widenChat() while the window is being drag-resized. Only keeps the chat
+	// parent, frame and middle background sprite as wide as the viewport; the viewport height, interface bounds and
+	// button layout are left to the full fix-up once the size has settled.
+	private void widenChatProvisional()
+	{
+		Widget canvas = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CONTROL);
 		if (canvas == null)
 		{
 			return;
 		}
 		int wideChatboxWidth = canvas.getWidth() - 249;
-		Widget chatParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);//161.96
+		Widget chatParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);
 		if (chatParent != null)
 		{
 			saveWidgetState(chatParent);
-			chatParent.setOriginalWidth(wideChatboxWidth);
-			chatParent.setOriginalX(0);
-			chatParent.setXPositionMode(0);
-			chatParent.revalidateScroll();
+			mutator.setOriginalWidth(chatParent, wideChatboxWidth);
+			revalidationQueue.markDirty(chatParent);
 		}
-		Widget chatFrame = client.getWidget(InterfaceID.Chatbox.CHATAREA);
+		Widget chatFrame = widgetCache.get(InterfaceID.Chatbox.CHATAREA);
 		if (chatFrame != null)
 		{
 			saveWidgetState(chatFrame);
-			chatFrame.setOriginalWidth(wideChatboxWidth);
-			chatFrame.revalidateScroll();
+			mutator.setOriginalWidth(chatFrame, wideChatboxWidth);
+			revalidationQueue.markDirty(chatFrame);
 		}
-		Widget dialogueOptions = client.getWidget(InterfaceID.Chatmenu.OPTIONS);
-		if (dialogueOptions != null)
+		Widget chatboxBackgroundParent = widgetCache.get(InterfaceID.Chatbox.CHAT_BACKGROUND);
+		if (chatboxBackgroundParent != null && chatboxBackgroundParent.getDynamicChildren().length == 4)
 		{
-			saveWidgetState(dialogueOptions);
-			dialogueOptions.setOriginalX(0);
-			dialogueOptions.setXPositionMode(1);
-			Widget dialogueOptionsParent = dialogueOptions.getParent();
-			if (dialogueOptionsParent != null)
-			{
-				dialogueOptionsParent.revalidateScroll();
-			}
+			mutator.setOriginalWidth(chatboxBackgroundParent.getDynamicChildren()[1], middleChatBackgroundWidth());
+			revalidationQueue.markDirty(chatboxBackgroundParent);
 		}
-		Widget reportAbuseDialogueSprite = client.getWidget(InterfaceID.Reportabuse.UNIVERSE_GRAPHIC0);
-		if (reportAbuseDialogueSprite != null)
+	}
+
+	private void widenChat()
+	{
+		final long timerStart = metrics.start(PluginMetrics.Timer.WIDEN_CHAT);
+		try
 		{
-			saveWidgetState(reportAbuseDialogueSprite);
-			reportAbuseDialogueSprite.setHidden(true);
+			//log.debug("Started widenChat() -> positionChatboxButtons -> *logChatWidgets()*");
+			if (!configSnapshot.isWideChatbox() || !widgetsModified || uiState.getGameClientLayout() != 2)
+			{
+				return;
+			}
+			Widget canvas = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CONTROL);
+			if (canvas == null)
+			{
+				return;
+			}
+			int wideChatboxWidth = canvas.getWidth() - 249;
+			Widget chatParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);//161.96
+			if (chatParent != null)
+			{
+				saveWidgetState(chatParent);
+				mutator.setOriginalWidth(chatParent, wideChatboxWidth);
+				mutator.setOriginalX(chatParent, 0);
+				mutator.setXPositionMode(chatParent, 0);
+				revalidationQueue.markDirty(chatParent);
+			}
+			Widget chatFrame = widgetCache.get(InterfaceID.Chatbox.CHATAREA);
+			if (chatFrame != null)
+			{
+				saveWidgetState(chatFrame);
+				mutator.setOriginalWidth(chatFrame, wideChatboxWidth);
+				revalidationQueue.markDirty(chatFrame);
+			}
+			Widget dialogueOptions = widgetCache.get(InterfaceID.Chatmenu.OPTIONS);
+			if (dialogueOptions != null)
+			{
+				saveWidgetState(dialogueOptions);
+				mutator.setOriginalX(dialogueOptions, 0);
+				mutator.setXPositionMode(dialogueOptions, 1);
+				Widget dialogueOptionsParent = dialogueOptions.getParent();
+				if (dialogueOptionsParent != null)
+				{
+					revalidationQueue.markDirty(dialogueOptionsParent);
+				}
+			}
+			Widget reportAbuseDialogueSprite = widgetCache.get(InterfaceID.Reportabuse.UNIVERSE_GRAPHIC0);
+			if (reportAbuseDialogueSprite != null)
+			{
+				saveWidgetState(reportAbuseDialogueSprite);
+				mutator.setHidden(reportAbuseDialogueSprite, true);
+			}
+			// Cooking/fletching background removal
+			Widget skillingDialogBackgroundSprite = widgetCache.get(InterfaceID.Skillmulti.UNIVERSE_GRAPHIC0);
+			if (skillingDialogBackgroundSprite != null)
+			{
+				saveWidgetState(skillingDialogBackgroundSprite);
+				mutator.setHidden(skillingDialogBackgroundSprite, true);
+			}
+			//Center chat buttons on viewport
+			positionChatboxButtons();
 		}
-		// Cooking/fletching background removal
-		Widget skillingDialogBackgroundSprite = client.getWidget(InterfaceID.Skillmulti.UNIVERSE_GRAPHIC0);
-		if (skillingDialogBackgroundSprite != null)
+		finally
 		{
-			saveWidgetState(skillingDialogBackgroundSprite);
-			skillingDialogBackgroundSprite.setHidden(true);
+			metrics.stop(PluginMetrics.Timer.WIDEN_CHAT, timerStart);
 		}
-		//Center chat buttons on viewport
-		positionChatboxButtons();
 	}
 
 	private void positionChatboxButtons()
 	{
-		Widget chatButtonsParent = client.getWidget(InterfaceID.Chatbox.CONTROLS);
+		Widget chatButtonsParent = widgetCache.get(InterfaceID.Chatbox.CONTROLS);
 		if (chatButtonsParent == null)
 		{
 			return;
 		}
 		saveWidgetState(chatButtonsParent);
-		chatButtonsParent.setOriginalWidth(0);
-		chatButtonsParent.setWidthMode(WidgetSizeMode.MINUS);
-		chatButtonsParent.revalidateScroll();
+		mutator.setOriginalWidth(chatButtonsParent, 0);
+		mutator.setWidthMode(chatButtonsParent, WidgetSizeMode.MINUS);
+		revalidationQueue.markDirty(chatButtonsParent);
 		//Fix for chatbuttons disappearing during cutscene and causing render bugs
-		Widget chatParent = client.getWidget(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);
-		if (cutSceneActive
+		Widget chatParent = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CHAT_CONTAINER);
+		if (uiState.isCutSceneActive()
 			&& chatButtonsParent.isSelfHidden()
 			&& chatParent != null
 			&& chatParent.getOriginalY() == 0
 		)
 		{
-			chatButtonsParent.setHidden(false);
+			mutator.setHidden(chatButtonsParent, false);
 		}
 		Widget[] chatButtonsWidgets = chatButtonsParent.getStaticChildren();
-		Widget reportButton = client.getWidget(InterfaceID.Chatbox.REPORTABUSE);
+		Widget reportButton = widgetCache.get(InterfaceID.Chatbox.REPORTABUSE);
 		int DEFAULT_CHAT_WIDTH = 519;
+		// Button layout is based on the computed chat width, so the widened chat parents need to be revalidated first
+		flushRevalidations();
 		int chatWidth = chatButtonsParent.getWidth();
 
 		for (int i = 0; i < chatButtonsWidgets.length; i++)
@@ -1427,45 +1947,50 @@ public class FixedResizableHybridPlugin extends Plugin
 				{
 					Widget chatButtonsBackground = children[0];
 					saveWidgetState(chatButtonsBackground);
-					chatButtonsBackground.setOriginalWidth(0);
-					chatButtonsBackground.setWidthMode(WidgetSizeMode.MINUS);
-					chatButtonsBackground.revalidate();
+					mutator.setOriginalWidth(chatButtonsBackground, 0);
+					mutator.setWidthMode(chatButtonsBackground, WidgetSizeMode.MINUS);
+					revalidationQueue.markDirty(chatButtonsBackground);
 				}
 			}
 			else
 			{
 				//Logic for processing the actual button widgets
 				saveWidgetState(widget);
-				int originalX = originalStates.get(widget.getId()).getOriginalX();
-				int originalWidth = originalStates.get(widget.getId()).getOriginalWidth();
+				int savedSlot = originalStates.indexOf(widget.getId());
+				if (savedSlot < 0)
+				{
+					continue;
+				}
+				int originalX = originalStates.getOriginalX(savedSlot);
+				int originalWidth = originalStates.getOriginalWidth(savedSlot);
 				// Center align buttons with no stretching
-				if (config.centerChatboxButtons())
+				if (configSnapshot.isCenterChatboxButtons())
 				{
 					int newButtonX = ((chatWidth - DEFAULT_CHAT_WIDTH) / 2) + originalX;
-					widget.setOriginalX(newButtonX);
-					widget.setOriginalWidth(originalWidth);
+					mutator.setOriginalX(widget, newButtonX);
+					mutator.setOriginalWidth(widget, originalWidth);
 
 					Widget[] children = widget.getStaticChildren();
 					if (children.length > 0 && children[0] != null && reportButton != null && widget != reportButton)
 					{
-						children[0].setOriginalWidth(originalWidth);
+						mutator.setOriginalWidth(children[0], originalWidth);
 					}
 				}
 				else
 				{ // Stretch chatbox buttons
 					int newButtonX = chatWidth * originalX / DEFAULT_CHAT_WIDTH;
 					int newButtonWidth = chatWidth * originalWidth / DEFAULT_CHAT_WIDTH;
-					widget.setOriginalX(newButtonX);
-					widget.setOriginalWidth(newButtonWidth);
+					mutator.setOriginalX(widget, newButtonX);
+					mutator.setOriginalWidth(widget, newButtonWidth);
 
 					Widget[] children = widget.getStaticChildren();
 					if (children.length > 0 && children[0] != null && reportButton != null && widget != reportButton)
 					{
 						// Adjust the sprite under the button
-						children[0].setOriginalWidth(newButtonWidth);
+						mutator.setOriginalWidth(children[0], newButtonWidth);
 					}
 				}
-				widget.revalidateScroll();
+				revalidationQueue.markDirty(widget);
 			}
 		}
 	}
@@ -1514,16 +2039,16 @@ public class FixedResizableHybridPlugin extends Plugin
 
 	private void createNewChatboxSprites()
 	{
-		if (!config.isWideChatbox())
+		if (!configSnapshot.isWideChatbox())
 		{
 			return;
 		}
 
 		// Retrieve required widgets.
-		Widget canvas = client.getWidget(InterfaceID.ToplevelOsrsStretch.CONTROL); // Provides the viewport width.
-		Widget chatboxFrame = client.getWidget(InterfaceID.Chatbox.CHATAREA);
-		Widget chatboxButtons = client.getWidget(InterfaceID.Chatbox.CONTROLS);
-		Widget chatboxBackgroundParent = client.getWidget(InterfaceID.Chatbox.CHAT_BACKGROUND);
+		Widget canvas = widgetCache.get(InterfaceID.ToplevelOsrsStretch.CONTROL); // Provides the viewport width.
+		Widget chatboxFrame = widgetCache.get(InterfaceID.Chatbox.CHATAREA);
+		Widget chatboxButtons = widgetCache.get(InterfaceID.Chatbox.CONTROLS);
+		Widget chatboxBackgroundParent = widgetCache.get(InterfaceID.Chatbox.CHAT_BACKGROUND);
 
 		// Ensure all widgets exist.
 		if (canvas == null || chatboxFrame == null || chatboxButtons == null || chatboxBackgroundParent == null)
@@ -1582,24 +2107,31 @@ public class FixedResizableHybridPlugin extends Plugin
 
 	private void setupWideChatboxWidget()
 	{
-		if (config.isWideChatbox())
+		if (configSnapshot.isWideChatbox())
 		{
 			setupChatboxSprites();
 			createNewChatboxSprites();
 		}
 	}
 
-	private boolean isChatboxOpen()
+	// Probes the chatbox widgets and stores whether the chat is open in uiState.
+	// Called from the chatbox open/close scripts, the cutscene varbit, window resizes and initialization.
+	private void refreshChatboxOpen()
+	{
+		uiState.setChatboxOpen(probeChatboxOpen());
+	}
+
+	private boolean probeChatboxOpen()
 	{
-		Widget chatboxFrame = client.getWidget(InterfaceID.Chatbox.CHATAREA);
+		Widget chatboxFrame = widgetCache.get(InterfaceID.Chatbox.CHATAREA);
 		if (chatboxFrame == null)
 		{
 			return false;
 		}
 
-		if (cutSceneActive)
+		if (uiState.isCutSceneActive())
 		{
-			Widget chatboxTransparentBackground = client.getWidget(InterfaceID.Chatbox.CHAT_BACKGROUND);
+			Widget chatboxTransparentBackground = widgetCache.get(InterfaceID.Chatbox.CHAT_BACKGROUND);
 			return chatboxTransparentBackground != null
 				&& chatboxTransparentBackground.getDynamicChildren().length > 0
 				&& !chatboxFrame.isHidden();
@@ -0,0 +1,108 @@
+package com.lapask;
+
+import java.util.Arrays;
+
+// Open-addressing map from an int key to a dense slot number (0..size-1, in insertion order).
+// Callers keep their values in parallel primitive arrays indexed by slot, so lookups and inserts neither box the key
+// nor allocate (except when the table grows).
+class IntSlotIndex
+{
+	private int[] tableKeys;
+	// slot + 1 for each table entry, 0 marks an empty entry
+	private int[] tableSlots;
+	private int[] slotKeys;
+	private int size = 0;
+
+	IntSlotIndex(int expectedSize)
+	{
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+		tableKeys = new int[capacity];
+		tableSlots = new int[capacity];
+		slotKeys = new int[Math.max(expectedSize, 4)];
+	}
+
+	// Returns the slot of the key, or -1 if it hasn't been added
+	int indexOf(int key)
+	{
+		int mask = tableKeys.length - 1;
+		for (int i = mix(key) & mask; ; i = (i + 1) & mask)
+		{
+			int slot = tableSlots[i];
+			if (slot == 0)
+			{
+				return -1;
+			}
+			if (tableKeys[i] == key)
+			{
+				return slot - 1;
+			}
+		}
+	}
+
+	// Returns the slot of the key, adding it as the next slot if it isn't present yet
+	int add(int key)
+	{
+		int existing = indexOf(key);
+		if (existing >= 0)
+		{
+			return existing;
+		}
+		if ((size + 1) * 2 > tableKeys.length)
+		{
+			rehash(tableKeys.length * 2);
+		}
+		if (size == slotKeys.length)
+		{
+			slotKeys = Arrays.copyOf(slotKeys, size * 2);
+		}
+		int slot = size++;
+		slotKeys[slot] = key;
+		insert(key, slot);
+		return slot;
+	}
+
+	int keyAt(int slot)
+	{
+		return slotKeys[slot];
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	void clear()
+	{
+		Arrays.fill(tableSlots, 0);
+		size = 0;
+	}
+
+	private void insert(int key, int slot)
+	{
+		int mask = tableKeys.length - 1;
+		int i = mix(key) & mask;
+		while (tableSlots[i] != 0)
+		{
+			i = (i + 1) & mask;
+		}
+		tableKeys[i] = key;
+		tableSlots[i] = slot + 1;
+	}
+
+	private void rehash(int capacity)
+	{
+		tableKeys = new int[capacity];
+		tableSlots = new int[capacity];
+		for (int slot = 0; slot < size; slot++)
+		{
+			insert(slotKeys[slot], slot);
+		}
+	}
+
+	// Component ids share their low bits between interfaces, so spread them before masking
+	private static int mix(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,327 @@
+package com.lapask;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR events for the plugin's expensive phases, so a regular recording of the client (jcmd <pid> JFR.start) shows
+// where the plugin spends time next to GC and Java2D activity, under "RuneLite / Fixed Resizable Hybrid" in JMC.
+// Usage: begin*() before the phase, finish(...) with the phase's numbers after it. begin*() returns null when no
+// recording has the event enabled, so nothing is allocated, measured or written then.
+//
+// jlinked runtimes don't necessarily include the jdk.jfr module, so nothing outside this class may reference
+// jdk.jfr types. The nested event classes are only loaded by begin*() once AVAILABLE is known to be true, and callers
+// only hold them by their exact types, which the bytecode verifier can check without loading them.
+final class JfrEvents
+{
+	static final boolean AVAILABLE = isAvailable();
+
+	private JfrEvents()
+	{
+	}
+
+	@Name("com.lapask.Initialization")
+	@Label("Initialization")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Widgets modified and created for the fixed mode layout")
+	@StackTrace(false)
+	static final class Initialization extends Event
+	{
+		@Label("Canvas Width")
+		int canvasWidth;
+		@Label("Canvas Height")
+		int canvasHeight;
+		@Label("Widgets Saved")
+		int widgetsSaved;
+		@Label("Widget Writes")
+		long widgetWrites;
+		@Label("Revalidations")
+		long revalidations;
+		@Label("Revalidations Queued")
+		@Description("Widgets queued for the revalidation batched until the next frame")
+		long revalidationsQueued;
+
+		void finish(int canvasWidth, int canvasHeight, int widgetsSaved, long widgetWrites, long revalidations, long revalidationsQueued)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.canvasWidth = canvasWidth;
+				this.canvasHeight = canvasHeight;
+				this.widgetsSaved = widgetsSaved;
+				this.widgetWrites = widgetWrites;
+				this.revalidations = revalidations;
+				this.revalidationsQueued = revalidationsQueued;
+				commit();
+			}
+		}
+	}
+
+	@Name("com.lapask.Reset")
+	@Label("Reset")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Modified widgets restored to their vanilla state")
+	@StackTrace(false)
+	static final class Reset extends Event
+	{
+		@Label("Widgets Restored")
+		int widgetsRestored;
+		@Label("Widget Writes")
+		long widgetWrites;
+		@Label("Revalidations")
+		long revalidations;
+
+		void finish(int widgetsRestored, long widgetWrites, long revalidations)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.widgetsRestored = widgetsRestored;
+				this.widgetWrites = widgetWrites;
+				this.revalidations = revalidations;
+				commit();
+			}
+		}
+	}
+
+	@Name("com.lapask.ScriptFixUp")
+	@Label("Script Fix-up")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Widgets fixed up after a client script ran")
+	@StackTrace(false)
+	static final class ScriptFixUp extends Event
+	{
+		@Label("Script Id")
+		int scriptId;
+		@Label("Canvas Width")
+		int canvasWidth;
+		@Label("Canvas Height")
+		int canvasHeight;
+		@Label("Widget Writes")
+		long widgetWrites;
+		@Label("Revalidations")
+		long revalidations;
+		@Label("Revalidations Queued")
+		@Description("Widgets queued for the revalidation batched until the next frame")
+		long revalidationsQueued;
+
+		void finish(int scriptId, int canvasWidth, int canvasHeight, long widgetWrites, long revalidations, long revalidationsQueued)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.scriptId = scriptId;
+				this.canvasWidth = canvasWidth;
+				this.canvasHeight = canvasHeight;
+				this.widgetWrites = widgetWrites;
+				this.revalidations = revalidations;
+				this.revalidationsQueued = revalidationsQueued;
+				commit();
+			}
+		}
+	}
+
+	@Name("com.lapask.BackgroundRebuild")
+	@Label("Background Rebuild")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Gap column layer redrawn. Strip Rebuilt is set when the background strip was redrawn right before, which isn't part of the duration")
+	@StackTrace(false)
+	static final class BackgroundRebuild extends Event
+	{
+		@Label("Background Mode")
+		String backgroundMode;
+		@Label("Strip Rebuilt")
+		boolean stripRebuilt;
+		@Label("Strip Height")
+		int stripHeight;
+		@Label("Column Height")
+		int columnHeight;
+		@Label("Layer Height")
+		int layerHeight;
+		@Label("Painted Rectangles")
+		int paintRects;
+
+		void finish(String backgroundMode, boolean stripRebuilt, int stripHeight, int columnHeight, int layerHeight, int paintRects)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.backgroundMode = backgroundMode;
+				this.stripRebuilt = stripRebuilt;
+				this.stripHeight = stripHeight;
+				this.columnHeight = columnHeight;
+				this.layerHeight = layerHeight;
+				this.paintRects = paintRects;
+				commit();
+			}
+		}
+	}
+
+	@Name("com.lapask.ImageDecode")
+	@Label("Custom Image Decode")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Custom background image read and normalized")
+	@StackTrace(false)
+	static final class ImageDecode extends Event
+	{
+		@Label("Source Width")
+		int sourceWidth;
+		@Label("Source Height")
+		int sourceHeight;
+		@Label("Decoded Width")
+		int decodedWidth;
+		@Label("Decoded Height")
+		int decodedHeight;
+		@Label("Horizontal Subsampling")
+		int xSubsampling;
+		@Label("Vertical Subsampling")
+		int ySubsampling;
+		@Label("Stored Height")
+		int storedHeight;
+
+		void finish(int sourceWidth, int sourceHeight, int decodedWidth, int decodedHeight, int xSubsampling, int ySubsampling,
+			int storedHeight)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.sourceWidth = sourceWidth;
+				this.sourceHeight = sourceHeight;
+				this.decodedWidth = decodedWidth;
+				this.decodedHeight = decodedHeight;
+				this.xSubsampling = xSubsampling;
+				this.ySubsampling = ySubsampling;
+				this.storedHeight = storedHeight;
+				commit();
+			}
+		}
+	}
+
+	@Name("com.lapask.AspectRatioResize")
+	@Label("Aspect Ratio Resize")
+	@Category({"RuneLite", "Fixed Resizable Hybrid"})
+	@Description("Client resized to the configured aspect ratio")
+	@StackTrace(false)
+	static final class AspectRatioResize extends Event
+	{
+		@Label("Current Width")
+		int currentWidth;
+		@Label("Current Height")
+		int currentHeight;
+		@Label("Target Width")
+		int targetWidth;
+		@Label("Target Height")
+		int targetHeight;
+
+		void finish(int currentWidth, int currentHeight, int targetWidth, int targetHeight)
+		{
+			end();
+			if (shouldCommit())
+			{
+				this.currentWidth = currentWidth;
+				this.currentHeight = currentHeight;
+				this.targetWidth = targetWidth;
+				this.targetHeight = targetHeight;
+				commit();
+			}
+		}
+	}
+
+	// The event types, to check whether a recording has an event enabled before allocating one. EventType.isEnabled()
+	// follows recordings starting and stopping. Only initialized by begin*() once AVAILABLE is known to be true.
+	private static final class Types
+	{
+		static final EventType INITIALIZATION = EventType.getEventType(Initialization.class);
+		static final EventType RESET = EventType.getEventType(Reset.class);
+		static final EventType SCRIPT_FIX_UP = EventType.getEventType(ScriptFixUp.class);
+		static final EventType BACKGROUND_REBUILD = EventType.getEventType(BackgroundRebuild.class);
+		static final EventType IMAGE_DECODE = EventType.getEventType(ImageDecode.class);
+		static final EventType ASPECT_RATIO_RESIZE = EventType.getEventType(AspectRatioResize.class);
+	}
+
+	// The begin*() methods are spelled out per type, a generic helper taking Event would make the verifier load
+	// the event classes (and jdk.jfr) when this class is linked.
+
+	static Initialization beginInitialization()
+	{
+		if (!AVAILABLE || !Types.INITIALIZATION.isEnabled())
+		{
+			return null;
+		}
+		final Initialization event = new Initialization();
+		event.begin();
+		return event;
+	}
+
+	static Reset beginReset()
+	{
+		if (!AVAILABLE || !Types.RESET.isEnabled())
+		{
+			return null;
+		}
+		final Reset event = new Reset();
+		event.begin();
+		return event;
+	}
+
+	static ScriptFixUp beginScriptFixUp()
+	{
+		if (!AVAILABLE || !Types.SCRIPT_FIX_UP.isEnabled())
+		{
+			return null;
+		}
+		final ScriptFixUp event = new ScriptFixUp();
+		event.begin();
+		return event;
+	}
+
+	static BackgroundRebuild beginBackgroundRebuild()
+	{
+		if (!AVAILABLE || !Types.BACKGROUND_REBUILD.isEnabled())
+		{
+			return null;
+		}
+		final BackgroundRebuild event = new BackgroundRebuild();
+		event.begin();
+		return event;
+	}
+
+	static ImageDecode beginImageDecode()
+	{
+		if (!AVAILABLE || !Types.IMAGE_DECODE.isEnabled())
+		{
+			return null;
+		}
+		final ImageDecode event = new ImageDecode();
+		event.begin();
+		return event;
+	}
+
+	static AspectRatioResize beginAspectRatioResize()
+	{
+		if (!AVAILABLE || !Types.ASPECT_RATIO_RESIZE.isEnabled())
+		{
+			return null;
+		}
+		final AspectRatioResize event = new AspectRatioResize();
+		event.begin();
+		return event;
+	}
+
+	private static boolean isAvailable()
+	{
+		try
+		{
+			Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.lapask;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+// Debug overlay for PluginMetrics, only added to the overlay manager while "Performance Overlay" is enabled.
+// One line per handler/pass that ran since the metrics were enabled: invocations, mean and p99 time, and the widget
+// setter calls (w) and revalidations (r) made while it was the innermost running timer.
+public class MetricsOverlay extends OverlayPanel
+{
+	private final FixedResizableHybridPlugin plugin;
+
+	@Inject
+	public MetricsOverlay(FixedResizableHybridPlugin plugin)
+	{
+		super(plugin);
+		this.plugin = plugin;
+		setPosition(OverlayPosition.TOP_LEFT);
+		panelComponent.setPreferredSize(new Dimension(300, 0));
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		final PluginMetrics metrics = plugin.getMetrics();
+		if (!metrics.isEnabled())
+		{
+			return null;
+		}
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+			.text("Fixed Resizable Hybrid")
+			.build());
+		for (PluginMetrics.Timer timer : PluginMetrics.Timer.values())
+		{
+			final long count = metrics.getCount(timer);
+			if (count == 0)
+			{
+				continue;
+			}
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(timer.getDisplayName())
+				.right(String.format("%d  %.0f/%.0fus  %dw %dr",
+					count,
+					metrics.getTotalNanos(timer) / 1e3 / count,
+					metrics.getPercentileNanos(timer, 99) / 1e3,
+					metrics.getSetterCalls(timer),
+					metrics.getRevalidations(timer)))
+				.build());
+		}
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("untimed")
+			.right(String.format("%dw %dr", metrics.getUntimedSetterCalls(), metrics.getUntimedRevalidations()))
+			.build());
+		return super.render(graphics);
+	}
+}
@@ -0,0 +1,246 @@
+package com.lapask;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+// Invocation counts and timings of the event handlers and layout passes, plus the widget writes they make, for the
+// performance overlay and the periodic log summary (see the Debug config section).
+// Timings are recorded into log-linear histograms like HdrHistogram's: one bucket range per power of two nanoseconds,
+// split into SUB_BUCKETS linear buckets, so percentiles are within 1/SUB_BUCKETS of the real value without keeping
+// samples. Widget setter calls and revalidations are attributed to the innermost running timer.
+// Must only be used from the client thread. While disabled, start() returns before reading the clock and everything
+// else returns after checking the flag.
+class PluginMetrics
+{
+	enum Timer
+	{
+		BEFORE_RENDER("onBeforeRender"),
+		CONFIG_CHANGED("onConfigChanged"),
+		SCRIPT_POST_FIRED("onScriptPostFired"),
+		VARBIT_CHANGED("onVarbitChanged"),
+		GAME_TICK("onGameTick"),
+		WIDGET_LOADED("onWidgetLoaded"),
+		WIDGET_CLOSED("onWidgetClosed"),
+		GAME_STATE_CHANGED("onGameStateChanged"),
+		FIX_INGAME_OVERLAY_WIDGETS("fixIngameOverlayWidgets"),
+		FIX_INTERFACE_DIMENSIONS("fixInterfaceDimensions"),
+		CHATBOX_CHANGED("chatboxChanged"),
+		WIDEN_CHAT("widenChat"),
+		REPOSITION_MINIMAP_WIDGETS("repositionMinimapWidgets"),
+		OVERLAY_RENDER("overlay render");
+
+		@Getter
+		private final String displayName;
+
+		Timer(String displayName)
+		{
+			this.displayName = displayName;
+		}
+	}
+
+	private static final Timer[] TIMERS = Timer.values();
+	// Widget writes made while no timer is running (e.g. from invokeLater() callbacks) are counted in this slot
+	private static final int UNTIMED = TIMERS.length;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	private static final int MAX_NESTING = 16;
+
+	private boolean enabled = false;
+	private final long[] counts = new long[TIMERS.length];
+	private final long[] totalNanos = new long[TIMERS.length];
+	private final long[] maxNanos = new long[TIMERS.length];
+	private final long[][] histograms = new long[TIMERS.length][BUCKETS];
+	private final long[] setterCalls = new long[TIMERS.length + 1];
+	private final long[] revalidations = new long[TIMERS.length + 1];
+	// Ordinals of the timers currently running, innermost last
+	private final int[] running = new int[MAX_NESTING];
+	private int depth = 0;
+
+	boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	// Enabling starts from empty counters
+	void setEnabled(boolean enabled)
+	{
+		if (enabled && !this.enabled)
+		{
+			reset();
+		}
+		this.enabled = enabled;
+	}
+
+	void reset()
+	{
+		Arrays.fill(counts, 0);
+		Arrays.fill(totalNanos, 0);
+		Arrays.fill(maxNanos, 0);
+		for (long[] histogram : histograms)
+		{
+			Arrays.fill(histogram, 0);
+		}
+		Arrays.fill(setterCalls, 0);
+		Arrays.fill(revalidations, 0);
+		depth = 0;
+	}
+
+	// Returns the start time to pass to stop(), or 0 if disabled.
+	// Must be paired with stop() in a finally block so the running timers stay balanced.
+	long start(Timer timer)
+	{
+		if (!enabled)
+		{
+			return 0;
+		}
+		if (depth < MAX_NESTING)
+		{
+			running[depth] = timer.ordinal();
+		}
+		depth++;
+		return System.nanoTime();
+	}
+
+	void stop(Timer timer, long start)
+	{
+		if (start == 0 || !enabled)
+		{
+			return;
+		}
+		final long nanos = System.nanoTime() - start;
+		final int t = timer.ordinal();
+		depth--;
+		counts[t]++;
+		totalNanos[t] += nanos;
+		if (nanos > maxNanos[t])
+		{
+			maxNanos[t] = nanos;
+		}
+		histograms[t][bucketIndex(nanos)]++;
+	}
+
+	void setterCalled()
+	{
+		if (enabled)
+		{
+			setterCalls[current()]++;
+		}
+	}
+
+	void revalidated()
+	{
+		if (enabled)
+		{
+			revalidations[current()]++;
+		}
+	}
+
+	long getCount(Timer timer)
+	{
+		return counts[timer.ordinal()];
+	}
+
+	long getTotalNanos(Timer timer)
+	{
+		return totalNanos[timer.ordinal()];
+	}
+
+	long getMaxNanos(Timer timer)
+	{
+		return maxNanos[timer.ordinal()];
+	}
+
+	long getSetterCalls(Timer timer)
+	{
+		return setterCalls[timer.ordinal()];
+	}
+
+	long getRevalidations(Timer timer)
+	{
+		return revalidations[timer.ordinal()];
+	}
+
+	long getUntimedSetterCalls()
+	{
+		return setterCalls[UNTIMED];
+	}
+
+	long getUntimedRevalidations()
+	{
+		return revalidations[UNTIMED];
+	}
+
+	// Upper bound of the bucket holding the given percentile (0-100) of the recorded times
+	long getPercentileNanos(Timer timer, double percentile)
+	{
+		final int t = timer.ordinal();
+		if (counts[t] == 0)
+		{
+			return 0;
+		}
+		final long target = Math.max(1, (long) Math.ceil(counts[t] * percentile / 100));
+		final long[] histogram = histograms[t];
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += histogram[i];
+			if (seen >= target)
+			{
+				return Math.min(bucketLowerBound(i + 1) - 1, maxNanos[t]);
+			}
+		}
+		return maxNanos[t];
+	}
+
+	// One line per timer that ran, for the log
+	String summary()
+	{
+		final StringBuilder sb = new StringBuilder("Fixed Resizable Hybrid performance:");
+		for (Timer timer : TIMERS)
+		{
+			final long count = getCount(timer);
+			if (count == 0)
+			{
+				continue;
+			}
+			sb.append(String.format("%n  %-26s n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus setters=%d revalidations=%d",
+				timer.getDisplayName(), count,
+				getTotalNanos(timer) / 1e3 / count,
+				getPercentileNanos(timer, 50) / 1e3,
+				getPercentileNanos(timer, 99) / 1e3,
+				getMaxNanos(timer) / 1e3,
+				getSetterCalls(timer), getRevalidations(timer)));
+		}
+		sb.append(String.format("%n  untimed setters=%d revalidations=%d", getUntimedSetterCalls(), getUntimedRevalidations()));
+		return sb.toString();
+	}
+
+	private int current()
+	{
+		return depth == 0 || depth > MAX_NESTING ? UNTIMED : running[depth - 1];
+	}
+
+	// Values below SUB_BUCKETS get a bucket each, above that each power of two is split into SUB_BUCKETS buckets
+	static int bucketIndex(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+		{
+			return (int) Math.max(nanos, 0);
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		final int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long bucketLowerBound(int index)
+	{
+		if (index < SUB_BUCKETS)
+		{
+			return index;
+		}
+		final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final int subBucket = index % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+}
@@ -0,0 +1,48 @@
+package com.lapask;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces requests for a full reset + reinitialization. Switching a resource pack or interface style fires a burst
+// of config changes, each of which used to rebuild every widget; now they only mark a reinit as pending, and the
+// plugin runs it once on the next game tick (trailing edge), however many requests came in before it.
+// request() may be called from any thread, takePending() is called from the client thread.
+class ReinitScheduler
+{
+	private final AtomicBoolean pending = new AtomicBoolean();
+	private final AtomicLong requested = new AtomicLong();
+	private final AtomicLong executed = new AtomicLong();
+
+	void request()
+	{
+		requested.incrementAndGet();
+		pending.set(true);
+	}
+
+	// Returns true (once) if a reinit was requested since the last call
+	boolean takePending()
+	{
+		if (pending.getAndSet(false))
+		{
+			executed.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	// Drops a pending reinit, e.g. on logout where the next login initializes anyway
+	void cancel()
+	{
+		pending.set(false);
+	}
+
+	long getRequested()
+	{
+		return requested.get();
+	}
+
+	long getExecuted()
+	{
+		return executed.get();
+	}
+}
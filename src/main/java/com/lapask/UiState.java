@@ -0,0 +1,19 @@
+package com.lapask;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+// Client UI state that the layout passes depend on. Updated by the plugin from the events that change it
+// (script 901, GameStateChanged, varbits 542 / TRANSPARENT_CHATBOX, the chatbox open/close scripts) so the hot paths
+// read a field instead of walking widgets every time.
+@Getter
+@Setter(AccessLevel.PACKAGE)
+class UiState
+{
+	// 1 = Fixed, 2 = Resizable - Classic, 3 = Resizable - Modern, -1 = unknown/not logged in
+	private int gameClientLayout = -1;
+	private boolean chatboxOpen = false;
+	private boolean cutSceneActive = false;
+	private boolean transparentChatbox = false;
+}
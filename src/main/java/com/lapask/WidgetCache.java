@@ -0,0 +1,178 @@
+package com.lapask;
+
+import java.util.Arrays;
+import javax.inject.Inject;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.Point;
+import net.runelite.api.widgets.Widget;
+
+// Caches the Widget handles and canvas geometry the plugin and overlay look up over and over, keyed by component id.
+// Handles are dropped when their interface group is loaded/closed (or everything on layout/login changes). Components
+// that aren't loaded are remembered until the layout generation changes, so asking for them every frame doesn't go
+// back to the client every frame.
+// Geometry (canvas location + size) is stamped with the layout generation, which is bumped whenever widgets are
+// revalidated or the canvas is resized, so it's only recomputed after something could have moved.
+// Must only be used from the client thread.
+class WidgetCache
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Client client;
+	private final IntSlotIndex index = new IntSlotIndex(INITIAL_CAPACITY);
+	private Widget[] widgets = new Widget[INITIAL_CAPACITY];
+	private int[] geometryGeneration = new int[INITIAL_CAPACITY];
+	// Layout generation of the last lookup that found nothing
+	private int[] missGeneration = new int[INITIAL_CAPACITY];
+	private int[] canvasX = new int[INITIAL_CAPACITY];
+	private int[] canvasY = new int[INITIAL_CAPACITY];
+	private int[] width = new int[INITIAL_CAPACITY];
+	private int[] height = new int[INITIAL_CAPACITY];
+
+	@Getter
+	private int layoutGeneration = 1;
+	private int lastCanvasWidth = -1;
+	private int lastCanvasHeight = -1;
+
+	@Inject
+	WidgetCache(Client client)
+	{
+		this.client = client;
+	}
+
+	// Returns the widget for the component id, or null if it isn't loaded
+	Widget get(int componentId)
+	{
+		int slot = index.indexOf(componentId);
+		if (slot >= 0)
+		{
+			if (widgets[slot] != null)
+			{
+				return widgets[slot];
+			}
+			if (missGeneration[slot] == layoutGeneration)
+			{
+				return null; // nothing loaded or revalidated since the last lookup
+			}
+		}
+
+		Widget widget = client.getWidget(componentId);
+		if (slot < 0)
+		{
+			slot = index.add(componentId);
+			ensureCapacity(slot + 1);
+		}
+		if (widget == null)
+		{
+			// Looked up again after the next layout change, loading the interface is one (see invalidateGroup())
+			missGeneration[slot] = layoutGeneration;
+			return null;
+		}
+		widgets[slot] = widget;
+		geometryGeneration[slot] = 0;
+		return widget;
+	}
+
+	// Returns a slot whose canvasX/canvasY/width/height are current for this layout generation, or -1 if the widget
+	// isn't loaded. The slot stays valid until the next invalidation.
+	int geometry(int componentId)
+	{
+		if (get(componentId) == null)
+		{
+			return -1;
+		}
+		int slot = index.indexOf(componentId);
+		if (geometryGeneration[slot] != layoutGeneration)
+		{
+			Widget widget = widgets[slot];
+			Point location = widget.getCanvasLocation();
+			canvasX[slot] = location.getX();
+			canvasY[slot] = location.getY();
+			width[slot] = widget.getWidth();
+			height[slot] = widget.getHeight();
+			geometryGeneration[slot] = layoutGeneration;
+		}
+		return slot;
+	}
+
+	Widget getWidget(int slot)
+	{
+		return widgets[slot];
+	}
+
+	int getCanvasX(int slot)
+	{
+		return canvasX[slot];
+	}
+
+	int getCanvasY(int slot)
+	{
+		return canvasY[slot];
+	}
+
+	int getWidth(int slot)
+	{
+		return width[slot];
+	}
+
+	int getHeight(int slot)
+	{
+		return height[slot];
+	}
+
+	// Called after widgets have been revalidated, cached geometry may be stale
+	void bumpLayoutGeneration()
+	{
+		layoutGeneration++;
+		if (layoutGeneration == 0)
+		{
+			layoutGeneration = 1; // 0 marks geometry that was never captured
+		}
+	}
+
+	// Called every frame, a canvas resize moves every right/bottom anchored widget
+	void validateCanvasSize(int canvasWidth, int canvasHeight)
+	{
+		if (canvasWidth != lastCanvasWidth || canvasHeight != lastCanvasHeight)
+		{
+			lastCanvasWidth = canvasWidth;
+			lastCanvasHeight = canvasHeight;
+			bumpLayoutGeneration();
+		}
+	}
+
+	// Drops the handles of every cached component belonging to the interface group
+	void invalidateGroup(int groupId)
+	{
+		for (int slot = 0; slot < index.size(); slot++)
+		{
+			if ((index.keyAt(slot) >>> 16) == groupId)
+			{
+				widgets[slot] = null;
+			}
+		}
+		bumpLayoutGeneration();
+	}
+
+	void invalidateAll()
+	{
+		Arrays.fill(widgets, null);
+		bumpLayoutGeneration();
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= widgets.length)
+		{
+			return;
+		}
+		int newCapacity = Math.max(capacity, widgets.length * 2);
+		widgets = Arrays.copyOf(widgets, newCapacity);
+		geometryGeneration = Arrays.copyOf(geometryGeneration, newCapacity);
+		missGeneration = Arrays.copyOf(missGeneration, newCapacity);
+		canvasX = Arrays.copyOf(canvasX, newCapacity);
+		canvasY = Arrays.copyOf(canvasY, newCapacity);
+		width = Arrays.copyOf(width, newCapacity);
+		height = Arrays.copyOf(height, newCapacity);
+	}
+}
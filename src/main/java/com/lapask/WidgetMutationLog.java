@@ -0,0 +1,192 @@
+package com.lapask;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetUtil;
+import net.runelite.client.RuneLite;
+
+// Flight recorder of the widget writes the plugin makes, to see what it did right before a UI glitch (orbs vanishing,
+// chat buttons missing after a cutscene, ...) without having to reproduce it. Always on: WidgetMutator records every
+// write and revalidation with the component, property, old and new value, the event that triggered it and the frame,
+// into a fixed ring of primitive arrays that overwrites the oldest entries. Recording is a few array stores, it never
+// allocates or locks.
+// Only the client thread writes and snapshots the ring (single writer), so it needs no synchronization. dump() copies
+// the ring and writes the copy to disk on a separate thread.
+@Slf4j
+class WidgetMutationLog
+{
+	static final int CAPACITY = 1 << 14;
+	private static final int MASK = CAPACITY - 1;
+
+	// Properties
+	static final int ORIGINAL_X = 0;
+	static final int ORIGINAL_Y = 1;
+	static final int ORIGINAL_WIDTH = 2;
+	static final int ORIGINAL_HEIGHT = 3;
+	static final int X_POSITION_MODE = 4;
+	static final int Y_POSITION_MODE = 5;
+	static final int WIDTH_MODE = 6;
+	static final int HEIGHT_MODE = 7;
+	static final int HIDDEN = 8;
+	static final int SPRITE_ID = 9;
+	static final int SPRITE_TILING = 10;
+	static final int NO_CLICK_THROUGH = 11;
+	static final int REVALIDATE = 12;
+	private static final String[] PROPERTY_NAMES = {
+		"originalX", "originalY", "originalWidth", "originalHeight",
+		"xPositionMode", "yPositionMode", "widthMode", "heightMode",
+		"hidden", "spriteId", "spriteTiling", "noClickThrough", "revalidateScroll"
+	};
+
+	// Triggers, the detail is the script/varbit/interface id or game state where there is one
+	static final int UNKNOWN = 0;
+	static final int BEFORE_RENDER = 1;
+	static final int SCRIPT_POST_FIRED = 2;
+	static final int VARBIT_CHANGED = 3;
+	static final int WIDGET_LOADED = 4;
+	static final int WIDGET_CLOSED = 5;
+	static final int GAME_STATE_CHANGED = 6;
+	static final int GAME_TICK = 7;
+	static final int CONFIG_CHANGED = 8;
+	static final int INITIALIZATION = 9;
+	static final int RESET = 10;
+	private static final String[] TRIGGER_NAMES = {
+		"unknown", "frame", "script", "varbit", "widget loaded", "widget closed",
+		"game state", "game tick", "config", "initialization", "reset"
+	};
+
+	private static final File DUMP_DIR = new File(RuneLite.RUNELITE_DIR, "fixed-resizable-hybrid");
+
+	private final int[] componentIds = new int[CAPACITY];
+	private final int[] childIndexes = new int[CAPACITY];
+	private final byte[] properties = new byte[CAPACITY];
+	private final int[] oldValues = new int[CAPACITY];
+	private final int[] newValues = new int[CAPACITY];
+	private final byte[] triggers = new byte[CAPACITY];
+	private final int[] triggerDetails = new int[CAPACITY];
+	private final int[] frames = new int[CAPACITY];
+	// Number of entries ever recorded, the next one goes to next & MASK
+	private long next = 0;
+
+	private int trigger = UNKNOWN;
+	private int triggerDetail = 0;
+	private int frame = 0;
+
+	// Set by the event handlers before they (or the passes they call) write widgets
+	void setTrigger(int trigger, int detail)
+	{
+		this.trigger = trigger;
+		this.triggerDetail = detail;
+	}
+
+	void nextFrame()
+	{
+		frame++;
+	}
+
+	void record(Widget widget, int property, int oldValue, int newValue)
+	{
+		final int i = (int) next++ & MASK;
+		componentIds[i] = widget.getId();
+		childIndexes[i] = widget.getIndex();
+		properties[i] = (byte) property;
+		oldValues[i] = oldValue;
+		newValues[i] = newValue;
+		triggers[i] = (byte) trigger;
+		triggerDetails[i] = triggerDetail;
+		frames[i] = frame;
+	}
+
+	// Copies the recorded entries and writes them, oldest first, to .runelite/fixed-resizable-hybrid on a separate
+	// thread. Returns the file being written.
+	File dump()
+	{
+		final Snapshot snapshot = new Snapshot();
+		final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		final File file = new File(DUMP_DIR, "widget-mutations-" + timestamp + ".txt");
+		final Thread writer = new Thread(() -> write(snapshot, file), "fixed-resizable-hybrid-mutation-dump");
+		writer.setDaemon(true);
+		writer.start();
+		return file;
+	}
+
+	int size()
+	{
+		return (int) Math.min(next, CAPACITY);
+	}
+
+	// The ring's entries in recording order
+	private final class Snapshot
+	{
+		final long total = next;
+		final int count = size();
+		final int[] componentIds = new int[count];
+		final int[] childIndexes = new int[count];
+		final byte[] properties = new byte[count];
+		final int[] oldValues = new int[count];
+		final int[] newValues = new int[count];
+		final byte[] triggers = new byte[count];
+		final int[] triggerDetails = new int[count];
+		final int[] frames = new int[count];
+
+		Snapshot()
+		{
+			for (int n = 0; n < count; n++)
+			{
+				final int i = (int) (total - count + n) & MASK;
+				componentIds[n] = WidgetMutationLog.this.componentIds[i];
+				childIndexes[n] = WidgetMutationLog.this.childIndexes[i];
+				properties[n] = WidgetMutationLog.this.properties[i];
+				oldValues[n] = WidgetMutationLog.this.oldValues[i];
+				newValues[n] = WidgetMutationLog.this.newValues[i];
+				triggers[n] = WidgetMutationLog.this.triggers[i];
+				triggerDetails[n] = WidgetMutationLog.this.triggerDetails[i];
+				frames[n] = WidgetMutationLog.this.frames[i];
+			}
+		}
+	}
+
+	private static void write(Snapshot snapshot, File file)
+	{
+		if (!DUMP_DIR.isDirectory() && !DUMP_DIR.mkdirs())
+		{
+			log.warn("Can't create {} for the widget mutation dump", DUMP_DIR);
+			return;
+		}
+		try (Writer out = new BufferedWriter(new FileWriter(file)))
+		{
+			out.write(String.format("# Fixed Resizable Hybrid widget mutations: last %d of %d, oldest first%n",
+				snapshot.count, snapshot.total));
+			out.write(String.format("# %-8s %-22s %-20s %-18s %s%n", "frame", "trigger", "component", "property", "old -> new"));
+			for (int n = 0; n < snapshot.count; n++)
+			{
+				final int componentId = snapshot.componentIds[n];
+				final int property = snapshot.properties[n];
+				final int trigger = snapshot.triggers[n];
+				// Only the event triggers carry an id
+				final String triggerName = trigger >= SCRIPT_POST_FIRED && trigger <= GAME_STATE_CHANGED
+					? TRIGGER_NAMES[trigger] + " " + snapshot.triggerDetails[n]
+					: TRIGGER_NAMES[trigger];
+				final String component = WidgetUtil.componentToInterface(componentId) + ":" + WidgetUtil.componentToId(componentId)
+					+ (snapshot.childIndexes[n] >= 0 ? "[" + snapshot.childIndexes[n] + "]" : "");
+				final String change = property == REVALIDATE
+					? ""
+					: snapshot.oldValues[n] + " -> " + snapshot.newValues[n];
+				out.write(String.format("  %-8d %-22s %-20s %-18s %s%n",
+					snapshot.frames[n], triggerName, component, PROPERTY_NAMES[property], change));
+			}
+			log.info("Wrote {} widget mutations to {}", snapshot.count, file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Failed to write the widget mutation dump", e);
+		}
+	}
+}
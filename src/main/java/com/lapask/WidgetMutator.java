@@ -0,0 +1,132 @@
+package com.lapask;
+
+import lombok.Getter;
+import net.runelite.api.widgets.Widget;
+
+// Every widget write and revalidation the plugin makes goes through here, so they can be counted (see PluginMetrics)
+// and recorded with their old values (see WidgetMutationLog). Every revalidation also runs layoutChanged, which
+// invalidates the geometry cached before it (see WidgetCache).
+// Must only be used from the client thread.
+class WidgetMutator
+{
+	private final PluginMetrics metrics;
+	private final WidgetMutationLog mutationLog;
+	private final Runnable layoutChanged;
+	// Running totals, always counted, phases report the difference (see JfrEvents)
+	@Getter
+	private long writes = 0;
+	@Getter
+	private long revalidations = 0;
+
+	WidgetMutator(PluginMetrics metrics, WidgetMutationLog mutationLog, Runnable layoutChanged)
+	{
+		this.metrics = metrics;
+		this.mutationLog = mutationLog;
+		this.layoutChanged = layoutChanged;
+	}
+
+	void setOriginalX(Widget widget, int originalX)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.ORIGINAL_X, widget.getOriginalX(), originalX);
+		widget.setOriginalX(originalX);
+	}
+
+	void setOriginalY(Widget widget, int originalY)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.ORIGINAL_Y, widget.getOriginalY(), originalY);
+		widget.setOriginalY(originalY);
+	}
+
+	void setOriginalWidth(Widget widget, int originalWidth)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.ORIGINAL_WIDTH, widget.getOriginalWidth(), originalWidth);
+		widget.setOriginalWidth(originalWidth);
+	}
+
+	void setOriginalHeight(Widget widget, int originalHeight)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.ORIGINAL_HEIGHT, widget.getOriginalHeight(), originalHeight);
+		widget.setOriginalHeight(originalHeight);
+	}
+
+	void setXPositionMode(Widget widget, int xPositionMode)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.X_POSITION_MODE, widget.getXPositionMode(), xPositionMode);
+		widget.setXPositionMode(xPositionMode);
+	}
+
+	void setYPositionMode(Widget widget, int yPositionMode)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.Y_POSITION_MODE, widget.getYPositionMode(), yPositionMode);
+		widget.setYPositionMode(yPositionMode);
+	}
+
+	void setWidthMode(Widget widget, int widthMode)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.WIDTH_MODE, widget.getWidthMode(), widthMode);
+		widget.setWidthMode(widthMode);
+	}
+
+	void setHeightMode(Widget widget, int heightMode)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.HEIGHT_MODE, widget.getHeightMode(), heightMode);
+		widget.setHeightMode(heightMode);
+	}
+
+	void setHidden(Widget widget, boolean hidden)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.HIDDEN, widget.isSelfHidden() ? 1 : 0, hidden ? 1 : 0);
+		widget.setHidden(hidden);
+	}
+
+	void setSpriteId(Widget widget, int spriteId)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.SPRITE_ID, widget.getSpriteId(), spriteId);
+		widget.setSpriteId(spriteId);
+	}
+
+	void setSpriteTiling(Widget widget, boolean spriteTiling)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.SPRITE_TILING, widget.getSpriteTiling() ? 1 : 0, spriteTiling ? 1 : 0);
+		widget.setSpriteTiling(spriteTiling);
+	}
+
+	void setNoClickThrough(Widget widget, boolean noClickThrough)
+	{
+		writes++;
+		metrics.setterCalled();
+		mutationLog.record(widget, WidgetMutationLog.NO_CLICK_THROUGH, widget.getNoClickThrough() ? 1 : 0, noClickThrough ? 1 : 0);
+		widget.setNoClickThrough(noClickThrough);
+	}
+
+	void revalidateScroll(Widget widget)
+	{
+		revalidations++;
+		metrics.revalidated();
+		mutationLog.record(widget, WidgetMutationLog.REVALIDATE, 0, 0);
+		widget.revalidateScroll();
+		layoutChanged.run();
+	}
+}
@@ -0,0 +1,125 @@
+package com.lapask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import net.runelite.api.widgets.Widget;
+
+// Collects widgets that were modified during a handler so they can be revalidated once instead of after every setter.
+// revalidateScroll() recalculates a widget together with its whole subtree, so a flush only revalidates the topmost
+// dirty widgets (any dirty widget with a dirty ancestor is covered by that ancestor), parents before children.
+// Must only be used from the client thread.
+class WidgetRevalidationQueue
+{
+	private final WidgetMutator mutator;
+	private final Set<Widget> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final List<Widget> pending = new ArrayList<>();
+
+	// Scratch buffers reused between flushes
+	private Widget[] flushWidgets = new Widget[32];
+	private int[] flushDepths = new int[32];
+
+	// Number of revalidations that were requested vs actually performed
+	@Getter
+	private long requested = 0;
+	@Getter
+	private long performed = 0;
+
+	WidgetRevalidationQueue(WidgetMutator mutator)
+	{
+		this.mutator = mutator;
+	}
+
+	void markDirty(Widget widget)
+	{
+		if (widget == null)
+		{
+			return;
+		}
+		requested++;
+		if (dirty.add(widget))
+		{
+			pending.add(widget);
+		}
+	}
+
+	long getSaved()
+	{
+		return requested - performed;
+	}
+
+	// Revalidates the topmost dirty widgets in parent-before-child order and empties the queue.
+	// Called before anything reads computed geometry (getWidth(), getRelativeY(), etc) of a queued widget, and once
+	// per frame from onBeforeRender() for whatever is left.
+	// Returns the number of widgets that were revalidated.
+	int flush()
+	{
+		if (pending.isEmpty())
+		{
+			return 0;
+		}
+
+		int count = 0;
+		for (Widget widget : pending)
+		{
+			int depth = dirtyAncestorDepth(widget);
+			if (depth < 0)
+			{
+				continue; // covered by a dirty ancestor
+			}
+			if (count == flushWidgets.length)
+			{
+				flushWidgets = Arrays.copyOf(flushWidgets, count * 2);
+				flushDepths = Arrays.copyOf(flushDepths, count * 2);
+			}
+			// Insertion sort by depth, the queue rarely holds more than a few dozen widgets
+			int i = count++;
+			while (i > 0 && flushDepths[i - 1] > depth)
+			{
+				flushWidgets[i] = flushWidgets[i - 1];
+				flushDepths[i] = flushDepths[i - 1];
+				i--;
+			}
+			flushWidgets[i] = widget;
+			flushDepths[i] = depth;
+		}
+
+		// Cleared before revalidating so the queue is consistent even if a revalidation throws
+		pending.clear();
+		dirty.clear();
+
+		for (int i = 0; i < count; i++)
+		{
+			mutator.revalidateScroll(flushWidgets[i]);
+			flushWidgets[i] = null;
+			performed++;
+		}
+		return count;
+	}
+
+	// Drops everything queued without revalidating, e.g. when the widgets are about to be unloaded.
+	void clear()
+	{
+		pending.clear();
+		dirty.clear();
+	}
+
+	// Returns the widget's depth in the tree, or -1 if one of its ancestors is also queued.
+	private int dirtyAncestorDepth(Widget widget)
+	{
+		int depth = 0;
+		for (Widget parent = widget.getParent(); parent != null; parent = parent.getParent())
+		{
+			if (dirty.contains(parent))
+			{
+				return -1;
+			}
+			depth++;
+		}
+		return depth;
+	}
+}
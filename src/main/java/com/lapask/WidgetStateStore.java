@@ -0,0 +1,164 @@
+package com.lapask;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import net.runelite.api.widgets.Widget;
+
+// Saved vanilla state of every widget the plugin modifies, used by resetWidgets() to put them back.
+// Stored as parallel int columns indexed by slot (see IntSlotIndex) plus a bitset for the hidden flag, so saving,
+// looking up and restoring widgets doesn't box ids or allocate a state object per widget. Slots are in the order widgets
+// were saved.
+class WidgetStateStore
+{
+	private static final int INITIAL_CAPACITY = 128;
+
+	private final WidgetMutator mutator;
+	private final IntSlotIndex index = new IntSlotIndex(INITIAL_CAPACITY);
+	private int[] spriteId = new int[INITIAL_CAPACITY];
+	private int[] originalX = new int[INITIAL_CAPACITY];
+	private int[] originalY = new int[INITIAL_CAPACITY];
+	private int[] originalWidth = new int[INITIAL_CAPACITY];
+	private int[] originalHeight = new int[INITIAL_CAPACITY];
+	private int[] xPositionMode = new int[INITIAL_CAPACITY];
+	private int[] yPositionMode = new int[INITIAL_CAPACITY];
+	private int[] widthMode = new int[INITIAL_CAPACITY];
+	private int[] heightMode = new int[INITIAL_CAPACITY];
+	private final BitSet selfHidden = new BitSet(INITIAL_CAPACITY);
+
+	WidgetStateStore(WidgetMutator mutator)
+	{
+		this.mutator = mutator;
+	}
+
+	// Saves the widget's current state. Does nothing if the widget was already saved, so the vanilla state isn't
+	// overwritten when a fix is applied more than once. Returns the widget's slot.
+	int save(Widget widget)
+	{
+		int widgetId = widget.getId();
+		int slot = index.indexOf(widgetId);
+		if (slot >= 0)
+		{
+			return slot;
+		}
+		slot = index.add(widgetId);
+		ensureCapacity(slot + 1);
+		spriteId[slot] = widget.getSpriteId();
+		originalX[slot] = widget.getOriginalX();
+		originalY[slot] = widget.getOriginalY();
+		originalWidth[slot] = widget.getOriginalWidth();
+		originalHeight[slot] = widget.getOriginalHeight();
+		xPositionMode[slot] = widget.getXPositionMode();
+		yPositionMode[slot] = widget.getYPositionMode();
+		widthMode[slot] = widget.getWidthMode();
+		heightMode[slot] = widget.getHeightMode();
+		selfHidden.set(slot, widget.isSelfHidden());
+		return slot;
+	}
+
+	// Returns the slot of the saved widget, or -1 if it hasn't been saved
+	int indexOf(int widgetId)
+	{
+		return index.indexOf(widgetId);
+	}
+
+	int size()
+	{
+		return index.size();
+	}
+
+	int getWidgetId(int slot)
+	{
+		return index.keyAt(slot);
+	}
+
+	int getSpriteId(int slot)
+	{
+		return spriteId[slot];
+	}
+
+	int getOriginalX(int slot)
+	{
+		return originalX[slot];
+	}
+
+	int getOriginalY(int slot)
+	{
+		return originalY[slot];
+	}
+
+	int getOriginalWidth(int slot)
+	{
+		return originalWidth[slot];
+	}
+
+	int getOriginalHeight(int slot)
+	{
+		return originalHeight[slot];
+	}
+
+	int getXPositionMode(int slot)
+	{
+		return xPositionMode[slot];
+	}
+
+	int getYPositionMode(int slot)
+	{
+		return yPositionMode[slot];
+	}
+
+	int getWidthMode(int slot)
+	{
+		return widthMode[slot];
+	}
+
+	int getHeightMode(int slot)
+	{
+		return heightMode[slot];
+	}
+
+	boolean isSelfHidden(int slot)
+	{
+		return selfHidden.get(slot);
+	}
+
+	// Writes the saved state of the slot back onto the widget (no revalidation).
+	// setHidden() sets the widget's own flag, so it gets the saved isSelfHidden() rather than isHidden(): a widget that
+	// was only hidden through its parent would otherwise stay hidden after the parent is shown again.
+	void restore(int slot, Widget widget)
+	{
+		mutator.setSpriteId(widget, spriteId[slot]);
+		mutator.setOriginalX(widget, originalX[slot]);
+		mutator.setOriginalY(widget, originalY[slot]);
+		mutator.setOriginalWidth(widget, originalWidth[slot]);
+		mutator.setOriginalHeight(widget, originalHeight[slot]);
+		mutator.setXPositionMode(widget, xPositionMode[slot]);
+		mutator.setYPositionMode(widget, yPositionMode[slot]);
+		mutator.setWidthMode(widget, widthMode[slot]);
+		mutator.setHeightMode(widget, heightMode[slot]);
+		mutator.setHidden(widget, selfHidden.get(slot));
+	}
+
+	void clear()
+	{
+		index.clear();
+		selfHidden.clear();
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= spriteId.length)
+		{
+			return;
+		}
+		int newCapacity = Math.max(capacity, spriteId.length * 2);
+		spriteId = Arrays.copyOf(spriteId, newCapacity);
+		originalX = Arrays.copyOf(originalX, newCapacity);
+		originalY = Arrays.copyOf(originalY, newCapacity);
+		originalWidth = Arrays.copyOf(originalWidth, newCapacity);
+		originalHeight = Arrays.copyOf(originalHeight, newCapacity);
+		xPositionMode = Arrays.copyOf(xPositionMode, newCapacity);
+		yPositionMode = Arrays.copyOf(yPositionMode, newCapacity);
+		widthMode = Arrays.copyOf(widthMode, newCapacity);
+		heightMode = Arrays.copyOf(heightMode, newCapacity);
+	}
+}
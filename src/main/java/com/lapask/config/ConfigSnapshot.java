@@ -0,0 +1,60 @@
+package com.lapask.config;
+
+import com.lapask.FixedResizableHybridConfig;
+import java.awt.Color;
+import lombok.Value;
+import net.runelite.client.config.Keybind;
+
+// Immutable copy of every FixedResizableHybridConfig value.
+// Reading the config interface goes through the ConfigManager proxy (reflection + string parsing), so the plugin
+// builds one of these whenever the config group changes and the per-frame/per-widget paths read it instead.
+@Value
+public class ConfigSnapshot
+{
+	boolean aspectRatioResize;
+	ResizeBy resizeBy;
+	int aspectRatioWidthResize;
+	int aspectRatioHeightResize;
+	OrbsPosition orbsPosition;
+	boolean useGapBorders;
+	BackgroundMode backgroundMode;
+	String customImagePath;
+	Color backgroundColor;
+	Color gapBackgroundTint;
+	boolean invBackgroundWarning;
+	int customImageMemoryBudget;
+	boolean watchCustomImage;
+	boolean wideChatbox;
+	boolean chatboxViewportCentering;
+	boolean centerChatboxButtons;
+	boolean recordEvents;
+	boolean metricsOverlay;
+	boolean metricsLogSummary;
+	Keybind dumpMutationsHotkey;
+
+	public static ConfigSnapshot from(FixedResizableHybridConfig config)
+	{
+		return new ConfigSnapshot(
+			config.aspectRatioResize(),
+			config.resizeBy(),
+			config.aspectRatioWidthResize(),
+			config.aspectRatioHeightResize(),
+			config.orbsPosition(),
+			config.useGapBorders(),
+			config.backgroundMode(),
+			config.customImagePath(),
+			config.backgroundColor(),
+			config.gapBackgroundTint(),
+			config.invBackgroundWarning(),
+			config.customImageMemoryBudget(),
+			config.watchCustomImage(),
+			config.isWideChatbox(),
+			config.chatboxViewportCentering(),
+			config.centerChatboxButtons(),
+			config.recordEvents(),
+			config.metricsOverlay(),
+			config.metricsLogSummary(),
+			config.dumpMutationsHotkey()
+		);
+	}
+}
@@ -0,0 +1,127 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import net.runelite.api.gameval.InterfaceID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+// The overlay draws every frame, once its caches are built a frame must not allocate (see ColumnSurface). Renders the
+// overlay headlessly with the stubbed client and checks the thread's allocated bytes over a run of frames. The frames
+// are warmed up first, so the JIT has compiled the render path and lazily created Java2D loops and pipes exist.
+// The bound is an average below one byte per frame rather than exactly zero, so a one-off allocation (a Java2D loop
+// created on demand, a coverage agent's bookkeeping) doesn't fail it, while any per-frame object does.
+public class OverlayAllocationTest
+{
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+	private static final int WARMUP_FRAMES = 20_000;
+	private static final int MEASURED_FRAMES = 10_000;
+
+	private com.sun.management.ThreadMXBean threads;
+	private FixedResizableHybridOverlay overlay;
+	private BufferedImage target;
+	private Graphics2D graphics;
+
+	@Before
+	public void setUp()
+	{
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		graphics = target.createGraphics();
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (graphics != null)
+		{
+			graphics.dispose();
+		}
+		if (overlay != null)
+		{
+			overlay.shutDown();
+			overlay.releaseSurface();
+		}
+	}
+
+	@Test
+	public void solidColor()
+	{
+		assertFramesDontAllocate(Stubs.gapColumnClient(WIDTH, HEIGHT), BackgroundMode.SOLID_COLOR);
+	}
+
+	@Test
+	public void tiledStone()
+	{
+		assertFramesDontAllocate(Stubs.gapColumnClient(WIDTH, HEIGHT), BackgroundMode.TILED_STONE);
+	}
+
+	@Test
+	public void tiledCustomImage()
+	{
+		assertFramesDontAllocate(Stubs.gapColumnClient(WIDTH, HEIGHT), BackgroundMode.TILED_CUSTOM_IMAGE);
+	}
+
+	// The minimap sprites aren't loaded yet while logging in, they're looked up every frame
+	@Test
+	public void minimapNotLoaded()
+	{
+		final Stubs.StubClient stubClient = Stubs.gapColumnClient(WIDTH, HEIGHT);
+		stubClient.widgets.remove(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP);
+		assertFramesDontAllocate(stubClient, BackgroundMode.TILED_STONE);
+	}
+
+	private void assertFramesDontAllocate(Stubs.StubClient stubClient, BackgroundMode mode)
+	{
+		final FixedResizableHybridPlugin plugin = new FixedResizableHybridPlugin();
+		Stubs.set(plugin, "configSnapshot", Stubs.snapshot(mode, true, true));
+		Stubs.set(plugin, "widgetCache", new WidgetCache(stubClient.client));
+
+		overlay = new FixedResizableHybridOverlay(stubClient.client, plugin);
+		if (mode == BackgroundMode.TILED_CUSTOM_IMAGE)
+		{
+			Stubs.set(overlay, "customImage", FixedResizableHybridOverlay.normalizeTile(customImage()));
+		}
+
+		render(WARMUP_FRAMES);
+		final long threadId = Thread.currentThread().getId();
+		final long before = threads.getThreadAllocatedBytes(threadId);
+		render(MEASURED_FRAMES);
+		final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		final double perFrame = (double) allocated / MEASURED_FRAMES;
+		assertTrue(mode + ": " + perFrame + " bytes allocated per frame", perFrame < 1);
+	}
+
+	private void render(int frames)
+	{
+		for (int i = 0; i < frames; i++)
+		{
+			overlay.render(graphics);
+		}
+	}
+
+	// A tile the size of the stock image, in the format ImageIO decodes PNGs to
+	private static BufferedImage customImage()
+	{
+		final BufferedImage image = new BufferedImage(FixedResizableHybridOverlay.OVERLAY_WIDTH, 100, BufferedImage.TYPE_4BYTE_ABGR);
+		for (int y = 0; y < image.getHeight(); y++)
+		{
+			for (int x = 0; x < image.getWidth(); x++)
+			{
+				image.setRGB(x, y, 0xFF000000 | (x * 255 / image.getWidth()) << 16 | (y * 255 / image.getHeight()) << 8);
+			}
+		}
+		return image;
+	}
+}
@@ -0,0 +1,201 @@
+package com.lapask;
+
+import com.lapask.config.BackgroundMode;
+import com.lapask.config.ConfigSnapshot;
+import com.lapask.config.OrbsPosition;
+import com.lapask.config.ResizeBy;
+import java.awt.Color;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.Client;
+import net.runelite.api.Point;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.config.Keybind;
+
+// Minimal stand-ins for the RuneLite API so the plugin's code can run headlessly, shared by the tests and the
+// benchmarks (src/jmh). Client and Widget are huge interfaces, so they're implemented with dynamic proxies that answer
+// the handful of methods the stubbed code calls and return zero/null/false for everything else.
+final class Stubs
+{
+	// Inventory and minimap blocks of the fixed mode side panel
+	private static final int INVENTORY_WIDTH = 241;
+	private static final int INVENTORY_HEIGHT = 336;
+	private static final int ORBS_HEIGHT = 170;
+	private static final int MAP_CONTAINER_HEIGHT = 207;
+
+	private Stubs()
+	{
+	}
+
+	// Client with a settable canvas size and a fixed set of widgets
+	static final class StubClient
+	{
+		int canvasWidth;
+		int canvasHeight;
+		final Map<Integer, Widget> widgets = new HashMap<>();
+		// The canvas size is boxed once per value, so the stub doesn't allocate on frames that don't resize
+		private Integer boxedWidth;
+		private Integer boxedHeight;
+
+		final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+			(proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getCanvasWidth":
+						return boxedWidth = box(boxedWidth, canvasWidth);
+					case "getCanvasHeight":
+						return boxedHeight = box(boxedHeight, canvasHeight);
+					case "getWidget":
+						return args.length == 1 && args[0] instanceof Integer ? widgets.get(args[0]) : null;
+					default:
+						return defaultValue(method.getReturnType());
+				}
+			});
+	}
+
+	// Client of the given canvas size with the widgets the overlay reads: the inventory and minimap blocks in their
+	// fixed mode place at the right edge
+	static StubClient gapColumnClient(int width, int height)
+	{
+		final int columnX = width - FixedResizableHybridOverlay.OVERLAY_WIDTH;
+		final StubClient stubClient = new StubClient();
+		stubClient.canvasWidth = width;
+		stubClient.canvasHeight = height;
+		put(stubClient, widget(InterfaceID.ToplevelOsrsStretch.SIDE_MENU,
+			width - INVENTORY_WIDTH, height - INVENTORY_HEIGHT, INVENTORY_WIDTH, INVENTORY_HEIGHT));
+		put(stubClient, widget(InterfaceID.Orbs.UNIVERSE, columnX, 0, FixedResizableHybridOverlay.OVERLAY_WIDTH, ORBS_HEIGHT));
+		put(stubClient, widget(InterfaceID.ToplevelOsrsStretch.MAP_CONTAINER,
+			columnX, 0, FixedResizableHybridOverlay.OVERLAY_WIDTH, MAP_CONTAINER_HEIGHT));
+		put(stubClient, widget(InterfaceID.ToplevelOsrsStretch.MAP_MINIMAP,
+			columnX, 0, FixedResizableHybridOverlay.OVERLAY_WIDTH, MAP_CONTAINER_HEIGHT));
+		return stubClient;
+	}
+
+	private static void put(StubClient stubClient, Widget widget)
+	{
+		stubClient.widgets.put(widget.getId(), widget);
+	}
+
+	private static Integer box(Integer boxed, int value)
+	{
+		return boxed != null && boxed == value ? boxed : Integer.valueOf(value);
+	}
+
+	// Widget with fixed canvas bounds. The values are boxed up front, so reading them doesn't allocate.
+	static Widget widget(int componentId, int x, int y, int width, int height)
+	{
+		final Integer boxedId = componentId;
+		final Point location = new Point(x, y);
+		final Integer boxedWidth = width;
+		final Integer boxedHeight = height;
+		return (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class},
+			(proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getId":
+						return boxedId;
+					case "getCanvasLocation":
+						return location;
+					case "getWidth":
+						return boxedWidth;
+					case "getHeight":
+						return boxedHeight;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return defaultValue(method.getReturnType());
+				}
+			});
+	}
+
+	static ConfigSnapshot snapshot(BackgroundMode mode, boolean tint, boolean gapBorders)
+	{
+		return new ConfigSnapshot(
+			false, ResizeBy.HEIGHT, 16, 9,
+			OrbsPosition.FIXED_MODE,
+			gapBorders,
+			mode,
+			"",
+			new Color(47, 42, 32),
+			tint ? new Color(0, 0, 0, 96) : new Color(0, 0, 0, 0),
+			true,
+			8,
+			false,
+			true, false, true,
+			false, false, false,
+			Keybind.NOT_SET);
+	}
+
+	// Sets a private field, the plugin's dependencies are normally injected by Guice
+	static void set(Object target, String fieldName, Object value)
+	{
+		try
+		{
+			Field field = target.getClass().getDeclaredField(fieldName);
+			field.setAccessible(true);
+			field.set(target, value);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Can't set " + fieldName, e);
+		}
+	}
+
+	static Object get(Object target, String fieldName)
+	{
+		try
+		{
+			Field field = target.getClass().getDeclaredField(fieldName);
+			field.setAccessible(true);
+			return field.get(target);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Can't get " + fieldName, e);
+		}
+	}
+
+	static Object defaultValue(Class<?> type)
+	{
+		if (!type.isPrimitive() || type == void.class)
+		{
+			return null;
+		}
+		if (type == boolean.class)
+		{
+			return false;
+		}
+		if (type == long.class)
+		{
+			return 0L;
+		}
+		if (type == float.class)
+		{
+			return 0f;
+		}
+		if (type == double.class)
+		{
+			return 0d;
+		}
+		if (type == char.class)
+		{
+			return (char) 0;
+		}
+		if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+		if (type == short.class)
+		{
+			return (short) 0;
+		}
+		return 0;
+	}
+}